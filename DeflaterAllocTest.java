@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 7)
+ * @summary Detects native memory allocations done by java.util.zip.Deflater#deflate.
+ *          Deflater allocates all its native state in "deflateInit2_", so no allocations
+ *          should be done by deflating neither in a single call into a buffer big enough
+ *          for the whole compressed data, nor in multiple passes into a small buffer.
+ *
+ *          Leaked blocks that have any of Deflater's JNI functions on the stack are counted.
+ *          Runs DeflaterAllocWorker under memcheck (valgrind) in parallel:
+ *           - using "nodeflate" mode to have a baseline result, "deflateInit2_" leak
+ *             must be detected in it and counted as a Deflater leak, to check that leaks
+ *             parsing from memcheck's output works and that the counted signature
+ *             matches real Deflater stacks
+ *           - using "deflate" and "smallbuf" modes
+ *
+ *          For test to success number of Deflater leaked blocks from "deflate"
+ *          and "smallbuf" runs must be the same as from "nodeflate" run.
+ *
+ * @compile DeflaterAllocWorker.java
+ * @build InflaterAllocTest MemcheckXmlScanner StackSignatureIndex ZipCentralDirectory WorkerResultCache
+ * @run main DeflaterAllocTest
+ */
+public class DeflaterAllocTest {
+    private static final String WORKER = "DeflaterAllocWorker";
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args none
+     */
+    public static void main(String[] args) throws Exception {
+        InflaterAllocTest.Backend backend = InflaterAllocTest.Backend.MEMCHECK;
+        List<String> modes = Arrays.asList("nodeflate", "deflate", "smallbuf");
+        System.out.println("Starting workers in " + modes + " modes in parallel");
+        InflaterAllocTest.runWorkersParallel(backend, WORKER, modes);
+
+        File noDeflateOut = backend.outFile(WORKER, "nodeflate");
+        StackSignatureIndex noDeflateIndex = InflaterAllocTest.scanLeaks(noDeflateOut);
+        long initLeaks = noDeflateIndex.getBlocks(InflaterAllocTest.SIGNATURE_DEFLATE_INIT);
+        if (0 == initLeaks) {
+            throw new RuntimeException("Test failed," +
+                    " 'nodeflate' mode 'deflateInit2_' leaks were not detected, check: [" + noDeflateOut + "],");
+        }
+        long noDeflateLeaks = noDeflateIndex.getBlocks(InflaterAllocTest.SIGNATURE_DEFLATER);
+        // positive control: "deflateInit2_" stacks must also match the checked signature
+        if (noDeflateLeaks < initLeaks) {
+            throw new RuntimeException("Test failed," +
+                    " 'nodeflate' mode 'deflateInit2_' leaks: [" + initLeaks + "] are not matched" +
+                    " by Deflater leaks: [" + noDeflateLeaks + "], check: [" + noDeflateOut + "],");
+        }
+        System.out.println("'nodeflate' leaks count: [" + noDeflateLeaks + "]");
+
+        for (String mode : modes.subList(1, modes.size())) {
+            long leaks = InflaterAllocTest.scanLeaks(backend.outFile(WORKER, mode))
+                    .getBlocks(InflaterAllocTest.SIGNATURE_DEFLATER);
+            System.out.println("'" + mode + "' leaks count: [" + leaks + "]");
+            if (leaks != noDeflateLeaks) {
+                throw new RuntimeException("Test failed," +
+                        " 'nodeflate' mode leaks count: [" + noDeflateLeaks + "]," +
+                        " '" + mode + "' mode leaks count: [" + leaks + "]");
+            }
+        }
+
+        System.out.println("Test passed");
+    }
+}
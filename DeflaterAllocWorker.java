@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Main class, should be run under the memcheck (valgrind)
+ * with "leak-check" and "show-reachable" enabled.
+ *
+ * Deflater counterpart of InflaterAllocWorker, unexpected leaks have
+ * "Java_java_util_zip_Deflater_deflate*" frames in their traces.
+ *
+ * zlib's debuginfo must be installed if JDK uses system zlib.
+ */
+public class DeflaterAllocWorker {
+
+    /**
+     * Deflates the uncompressed XSDHandler.class (from XSDHandler.class.zip, path to it
+     * is a first argument) differently depending on specified 'mode' (second argument).
+     * 'deflate' mode deflates in a single call into a buffer big enough for the whole
+     * compressed data, 'smallbuf' mode deflates doing multiple passes,
+     * 'nodeflate' (or any other mode) only creates a Deflater.
+     * Stops the process immediately after the deflating to prevent "Deflater" finalizer from running.
+     *
+     * @param args two arguments: path to XSDHandler.class.zip and a mode
+     */
+    public static void main(String[] args) throws Exception {
+        if (2 != args.length) {
+            throw new RuntimeException("ERROR: invalid number of arguments specified: [" + args.length + "]," +
+                    " expected first argument: 'path/to/XSDHandler.class.zip'," +
+                    " expected second argument 'deflate', 'smallbuf' or 'nodeflate'");
+        }
+        System.out.println("INFO: Running in mode: [" + args[1] + "]");
+        byte[] uncomp = readUncompressed(new File(args[0]));
+        Deflater def = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflateInternal(def, uncomp, args[1]);
+        // trying to end process abruptly to prevent running finalizer that will call "deflateEnd"
+        System.exit(0);
+    }
+
+    /**
+     * Deflates specified data differently depending on a specified mode.
+     * 'deflate' mode deflates in a single call, 'smallbuf' mode deflates doing multiple passes,
+     * 'nodeflate' (or any other mode) is a no-op
+     *
+     * @param def deflater
+     * @param uncomp uncompressed data
+     * @param mode 'deflate', 'smallbuf' or 'nodeflate'
+     */
+    private static void deflateInternal(Deflater def, byte[] uncomp, String mode) throws Exception {
+        byte[] comp;
+        if ("deflate".equals(mode)) {
+            comp = new byte[deflateBound(uncomp.length)];
+        } else if ("smallbuf".equals(mode)) {
+            comp = new byte[8192];
+        } else {
+            return;
+        }
+        def.setInput(uncomp);
+        def.finish();
+        long compCount = 0;
+        int calls = 0;
+        while (!def.finished()) {
+            int defRes = def.deflate(comp, 0, comp.length);
+            calls += 1;
+            if (0 == defRes && def.needsInput()) break;
+            compCount += defRes;
+        }
+        if (!def.finished() || ("deflate".equals(mode) && 1 != calls)) {
+            throw new RuntimeException("ERROR: deflate operation failed," +
+                    " finished: [" + def.finished() + "], calls: [" + calls + "]," +
+                    " compressed bytes: [" + compCount + "]");
+        }
+        System.out.println("INFO: deflate exited successfully, compressed bytes: [" + compCount + "]," +
+                " deflate calls: [" + calls + "]");
+    }
+
+    /**
+     * Returns the upper bound of the compressed size for a specified input length,
+     * same as zlib's "deflateBound" for default parameters plus raw stream overhead
+     *
+     * @param len input length
+     * @return max compressed length
+     */
+    static int deflateBound(int len) {
+        return len + (len >> 12) + (len >> 14) + (len >> 25) + 13 + 5;
+    }
+
+    /**
+     * Reads and inflates the first entry of the XSDHandler.class.zip file,
+     * Inflater used is ended to not interfere with Deflater leaks
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @return uncompressed XSDHandler.class
+     */
+    static byte[] readUncompressed(File zipFile) throws Exception {
+        ZipCentralDirectory.Entry en = ZipCentralDirectory.read(zipFile).get(0);
+        byte[] comp = new byte[(int) en.getCompressedSize()];
+        RandomAccessFile raf = new RandomAccessFile(zipFile, "r");
+        try {
+            raf.seek(en.getDataOffset());
+            raf.readFully(comp);
+        } finally {
+            raf.close();
+        }
+        byte[] uncomp = new byte[(int) en.getUncompressedSize()];
+        Inflater inf = new Inflater(true);
+        try {
+            inf.setInput(comp);
+            int uncompCount = 0;
+            while (uncompCount < uncomp.length) {
+                int infRes = inf.inflate(uncomp, uncompCount, uncomp.length - uncompCount);
+                if (0 == infRes) break;
+                uncompCount += infRes;
+            }
+            if (uncomp.length != uncompCount) {
+                throw new RuntimeException("ERROR: inflate operation failed," +
+                        " expected decompressed bytes: [" + uncomp.length + "]," +
+                        " actual decompressed bytes: [" + uncompCount + "]");
+            }
+        } finally {
+            inf.end();
+        }
+        return uncomp;
+    }
+}
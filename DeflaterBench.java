@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Round-trip benchmark for Deflater and Inflater, not run by jtreg.
+ *
+ * Deflates the uncompressed XSDHandler.class with reused Deflater at several
+ * compression levels, in a single call into a buffer big enough for the whole
+ * compressed data and in multiple passes into 8 KB buffer, then inflates the result
+ * back in a single pass with reused Inflater and checks it. Reports deflate,
+ * inflate and round-trip throughput in MB/s of uncompressed data.
+ *
+ * Usage: java DeflaterBench [path/to/XSDHandler.class.zip] [iterations]
+ */
+public class DeflaterBench {
+    private static final int[] LEVELS = {Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION};
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args optional ZIP file path (default XSDHandler.class.zip) and iterations count (default 500)
+     */
+    public static void main(String[] args) throws Exception {
+        File zipFile = new File(args.length > 0 ? args[0] : "XSDHandler.class.zip");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        byte[] uncomp = DeflaterAllocWorker.readUncompressed(zipFile);
+        // two rounds, first one is a warmup
+        for (int round = 0; round < 2; round++) {
+            for (int level : LEVELS) {
+                run(uncomp, level, DeflaterAllocWorker.deflateBound(uncomp.length), iterations);
+                run(uncomp, level, 8192, iterations);
+            }
+        }
+    }
+
+    private static void run(byte[] uncomp, int level, int bufferSize, int iterations) throws Exception {
+        Deflater def = new Deflater(level, true);
+        Inflater inf = new Inflater(true);
+        byte[] comp = new byte[DeflaterAllocWorker.deflateBound(uncomp.length)];
+        // single call deflates directly into the result buffer
+        boolean singleCall = bufferSize >= comp.length;
+        byte[] buf = singleCall ? comp : new byte[bufferSize];
+        byte[] restored = new byte[uncomp.length];
+        long deflateNanos = 0;
+        long inflateNanos = 0;
+        int compLen = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            def.reset();
+            def.setInput(uncomp);
+            def.finish();
+            compLen = 0;
+            while (!def.finished()) {
+                if (singleCall) {
+                    compLen += def.deflate(comp, compLen, comp.length - compLen);
+                } else {
+                    int defRes = def.deflate(buf, 0, buf.length);
+                    System.arraycopy(buf, 0, comp, compLen, defRes);
+                    compLen += defRes;
+                }
+            }
+            long mid = System.nanoTime();
+            inf.reset();
+            inf.setInput(comp, 0, compLen);
+            int uncompCount = 0;
+            while (uncompCount < restored.length) {
+                int infRes = inf.inflate(restored, uncompCount, restored.length - uncompCount);
+                if (0 == infRes) break;
+                uncompCount += infRes;
+            }
+            inflateNanos += System.nanoTime() - mid;
+            deflateNanos += mid - start;
+            if (uncomp.length != uncompCount) {
+                throw new RuntimeException("ERROR: round-trip failed," +
+                        " expected decompressed bytes: [" + uncomp.length + "]," +
+                        " actual decompressed bytes: [" + uncompCount + "]");
+            }
+        }
+        def.end();
+        inf.end();
+        double mb = (double) uncomp.length * iterations / (1024d * 1024d);
+        System.out.println("INFO: level: [" + level + "], buffer: [" + bufferSize + "]," +
+                " compressed: [" + compLen + "]," +
+                " deflate: [" + String.format("%.1f", mb * 1e9 / deflateNanos) + "] MB/s," +
+                " inflate: [" + String.format("%.1f", mb * 1e9 / inflateNanos) + "] MB/s," +
+                " round-trip: [" + String.format("%.1f", mb * 1e9 / (deflateNanos + inflateNanos)) + "] MB/s");
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs InflaterAllocTest against multiple JDKs and keeps results history, not run by jtreg.
+ *
+ * For each specified JDK home InflaterAllocTest is started in a separate process
+ * (with the JDK used as "test.jdk") in its own working directory, JDKs are processed
+ * in parallel on a thread pool bounded by the number of available cores.
+ * "smallbuf", "noinflate" and "inflate" leak counts and bytes are read from the
+ * backend output files and a line per JDK is appended to a CSV results file:
+ *
+ *     run,jdk_version,backend,smallbuf_leaks,smallbuf_bytes,noinflate_leaks,noinflate_bytes,
+ *     inflate_leaks,inflate_bytes,wall_ms,status,jdk_home
+ *
+ * where status is "OK", "FAIL" (if 'inflate' leaks count is above the 'noinflate' baseline)
+ * or "ERROR" (if results cannot be read, 'smallbuf' leaks were not detected or the test
+ * exited with an error not caused by the leaks check). After the run a trend of "inflate - noinflate" leaks counts over the previous
+ * runs from the results file is printed for each JDK.
+ *
+ * Classes must be compiled for the oldest JDK in the list, e.g. with "-source 7 -target 7".
+ *
+ * Usage: java InflaterAllocMatrix [preload] [results=matrix.csv] [src=.] [work=matrix] jdk_home... [@jdks.txt]
+ */
+public class InflaterAllocMatrix {
+    private static final String WORKER = "InflaterAllocWorker";
+    private static final String[] MODES = {"smallbuf", "noinflate", "inflate"};
+    private static final String CSV_HEADER = "run,jdk_version,backend,smallbuf_leaks,smallbuf_bytes," +
+            "noinflate_leaks,noinflate_bytes,inflate_leaks,inflate_bytes,wall_ms,status,jdk_home";
+    private static final int CSV_COLUMNS = 12;
+    private static final int TREND_RUNS = 8;
+
+    /**
+     * Runs the matrix
+     *
+     * @param args 'preload' to use malloc interposer library instead of memcheck,
+     *             'results=path' results CSV file (default matrix.csv),
+     *             'src=dir' directory with XSDHandler.class.zip and InflaterAllocPreload.c (default current),
+     *             'work=dir' directory for workers output (default 'matrix'),
+     *             other arguments are JDK homes or '@file' with a JDK home on each line
+     */
+    public static void main(String[] args) throws Exception {
+        final boolean preload = Arrays.asList(args).contains("preload");
+        File results = new File("matrix.csv");
+        File src = new File(".");
+        File work = new File("matrix");
+        List<File> jdks = new ArrayList<File>();
+        for (String ar : args) {
+            if ("preload".equals(ar)) {
+                continue;
+            } else if (ar.startsWith("results=")) {
+                results = new File(ar.substring("results=".length()));
+            } else if (ar.startsWith("src=")) {
+                src = new File(ar.substring("src=".length()));
+            } else if (ar.startsWith("work=")) {
+                work = new File(ar.substring("work=".length()));
+            } else if (ar.startsWith("@")) {
+                jdks.addAll(readJdkList(new File(ar.substring(1))));
+            } else {
+                jdks.add(new File(ar));
+            }
+        }
+        if (jdks.isEmpty()) {
+            throw new RuntimeException("ERROR: no JDK homes specified, usage: java InflaterAllocMatrix" +
+                    " [preload] [results=matrix.csv] [src=.] [work=matrix] jdk_home... [@jdks.txt]");
+        }
+        final File srcDir = src.getAbsoluteFile();
+        final String run = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date());
+        final File runDir = new File(work, run.replace(':', '-')).getAbsoluteFile();
+        final CsvAppender appender = new CsvAppender(results);
+
+        int threads = Math.min(jdks.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+            for (final File jdk : jdks) {
+                futures.add(executor.submit(new Callable<String[]>() {
+                    @Override
+                    public String[] call() throws Exception {
+                        String[] row = runJdk(run, jdk.getAbsoluteFile(), srcDir, runDir, preload);
+                        appender.append(row);
+                        System.out.println("INFO: jdk: [" + jdk + "], version: [" + row[1] + "]," +
+                                " inflate leaks: [" + row[7] + "], noinflate leaks: [" + row[5] + "]," +
+                                " status: [" + row[10] + "]");
+                        return row;
+                    }
+                }));
+            }
+            for (Future<String[]> fu : futures) {
+                fu.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        printTrend(results, run);
+    }
+
+    /**
+     * Runs InflaterAllocTest for a single JDK in a separate process and collects its results
+     *
+     * @param run run identifier
+     * @param jdk JDK home
+     * @param srcDir directory with test sources
+     * @param runDir directory for this run's output
+     * @param preload whether to use malloc interposer library instead of memcheck
+     * @return CSV row
+     */
+    private static String[] runJdk(String run, File jdk, File srcDir, File runDir, boolean preload) throws Exception {
+        InflaterAllocTest.Backend backend = preload ? InflaterAllocTest.Backend.PRELOAD : InflaterAllocTest.Backend.MEMCHECK;
+        File dir = new File(runDir, jdk.getPath().replaceAll("[^A-Za-z0-9._-]", "_"));
+        if (!(dir.isDirectory() || dir.mkdirs())) {
+            throw new RuntimeException("ERROR: cannot create directory: [" + dir.getAbsolutePath() + "]");
+        }
+        String classpath = System.getProperty("java.class.path");
+        List<String> command = new ArrayList<String>(Arrays.asList(
+                new File(System.getProperty("java.home"), "bin" + File.separator + "java").getAbsolutePath(),
+                "-cp", classpath,
+                "-Dtest.classes=" + new File(classpath.split(File.pathSeparator)[0]).getAbsolutePath(),
+                "-Dtest.src=" + srcDir.getAbsolutePath(),
+                "-Dtest.jdk=" + jdk.getAbsolutePath(),
+                "InflaterAllocTest", "parallel"));
+        if (preload) {
+            command.add("preload");
+        }
+        long start = System.currentTimeMillis();
+        // leaks are counted from the output files, exit code is used only to detect broken runs
+        int code = new ProcessBuilder(command)
+                .directory(dir)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File(dir, "InflaterAllocTest.out")))
+                .start()
+                .waitFor();
+        long wallMs = System.currentTimeMillis() - start;
+
+        String[] row = new String[CSV_COLUMNS];
+        row[0] = run;
+        row[1] = readJdkVersion(jdk);
+        row[2] = backend.name().toLowerCase(Locale.ENGLISH);
+        String status;
+        try {
+            for (int i = 0; i < MODES.length; i++) {
+                long[] leaks = readLeaks(backend, new File(dir, backend.outFile(WORKER, MODES[i]).getPath()));
+                row[3 + i * 2] = String.valueOf(leaks[0]);
+                row[4 + i * 2] = String.valueOf(leaks[1]);
+            }
+            if (0 == Long.parseLong(row[3])) {
+                System.out.println("ERROR: jdk: [" + jdk + "], 'smallbuf' leaks were not detected," +
+                        " check: [" + new File(dir, "InflaterAllocTest.out") + "]");
+                status = "ERROR";
+            } else if (Long.parseLong(row[7]) > Long.parseLong(row[5])) {
+                status = "FAIL";
+            } else if (0 != code) {
+                System.out.println("ERROR: jdk: [" + jdk + "], test returned code: [" + code + "]," +
+                        " check: [" + new File(dir, "InflaterAllocTest.out") + "]");
+                status = "ERROR";
+            } else {
+                status = "OK";
+            }
+        } catch (Exception e) {
+            System.out.println("ERROR: jdk: [" + jdk + "], cannot read results: [" + e.getMessage() + "]," +
+                    " check: [" + new File(dir, "InflaterAllocTest.out") + "]");
+            status = "ERROR";
+        }
+        for (int i = 3; i < 9; i++) {
+            if (null == row[i]) {
+                row[i] = "-1";
+            }
+        }
+        row[9] = String.valueOf(wallMs);
+        row[10] = status;
+        row[11] = jdk.getAbsolutePath();
+        return row;
+    }
+
+    /**
+     * Reads 'updatewindow' leaks count and bytes from the backend output file
+     *
+     * @param backend backend used to run the worker
+     * @param out backend's output file
+     * @return leaks count and leaked bytes
+     */
+    private static long[] readLeaks(InflaterAllocTest.Backend backend, File out) throws Exception {
+        if (InflaterAllocTest.Backend.PRELOAD == backend) {
+            Properties counters = InflaterAllocTest.readPreloadCounters(out);
+            return new long[]{Long.parseLong(counters.getProperty("mallocs")),
+                    Long.parseLong(counters.getProperty("bytes"))};
+        }
+        if (!out.exists()) {
+            throw new FileNotFoundException(out.getAbsolutePath());
+        }
+        StackSignatureIndex index = InflaterAllocTest.scanLeaks(out);
+        return new long[]{index.getBlocks(InflaterAllocTest.SIGNATURE_UPDATEWINDOW),
+                index.getBytes(InflaterAllocTest.SIGNATURE_UPDATEWINDOW)};
+    }
+
+    /**
+     * Prints "inflate - noinflate" leaks counts from the last runs of each JDK
+     * present in the specified run, oldest first, and whether the current result
+     * has changed compared to the previous run
+     *
+     * @param results results CSV file
+     * @param run current run identifier
+     */
+    private static void printTrend(File results, String run) throws IOException {
+        Map<String, List<String[]>> history = new LinkedHashMap<String, List<String[]>>();
+        Set<String> current = new LinkedHashSet<String>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(results));
+            String line;
+            while (null != (line = reader.readLine())) {
+                String[] row = line.split(",", CSV_COLUMNS);
+                if (CSV_COLUMNS != row.length || CSV_HEADER.startsWith(row[0] + ",")) {
+                    continue;
+                }
+                String key = row[11] + " (" + row[2] + ")";
+                List<String[]> rows = history.get(key);
+                if (null == rows) {
+                    rows = new ArrayList<String[]>();
+                    history.put(key, rows);
+                }
+                rows.add(row);
+                if (run.equals(row[0])) {
+                    current.add(key);
+                }
+            }
+        } finally {
+            if (null != reader) {
+                reader.close();
+            }
+        }
+        System.out.println("Trend of 'inflate - noinflate' leaks, last " + TREND_RUNS + " runs, oldest first:");
+        for (String key : current) {
+            List<String[]> rows = history.get(key);
+            StringBuilder sb = new StringBuilder();
+            for (String[] row : rows.subList(Math.max(0, rows.size() - TREND_RUNS), rows.size())) {
+                sb.append(" ").append("ERROR".equals(row[10]) ? "E" : String.valueOf(delta(row)));
+            }
+            String[] last = rows.get(rows.size() - 1);
+            String change = "new";
+            if (rows.size() > 1) {
+                String[] prev = rows.get(rows.size() - 2);
+                if (prev[10].equals(last[10])) {
+                    change = "unchanged";
+                } else if ("FAIL".equals(last[10])) {
+                    change = "REGRESSION";
+                } else if ("OK".equals(last[10]) && "FAIL".equals(prev[10])) {
+                    change = "fixed";
+                } else {
+                    change = prev[10] + " -> " + last[10];
+                }
+            }
+            System.out.println(String.format("%-8s %-12s [%s ] %s  %s",
+                    last[10], last[1], sb.toString(), change, key));
+        }
+    }
+
+    private static long delta(String[] row) {
+        return Long.parseLong(row[7]) - Long.parseLong(row[5]);
+    }
+
+    /**
+     * Reads JAVA_VERSION from the "release" file in the JDK home
+     *
+     * @param jdk JDK home
+     * @return JDK version, "unknown" if not available
+     */
+    private static String readJdkVersion(File jdk) {
+        Properties release = new Properties();
+        InputStream is = null;
+        try {
+            is = new FileInputStream(new File(jdk, "release"));
+            release.load(is);
+            String version = release.getProperty("JAVA_VERSION", "unknown");
+            return version.replace("\"", "").replace(',', '_');
+        } catch (IOException e) {
+            return "unknown";
+        } finally {
+            if (null != is) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads JDK homes list, one per line, empty lines and lines starting with '#' are ignored
+     *
+     * @param file list file
+     * @return JDK homes
+     */
+    private static List<File> readJdkList(File file) throws IOException {
+        List<File> res = new ArrayList<File>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            while (null != (line = reader.readLine())) {
+                line = line.trim();
+                if (!(line.isEmpty() || line.startsWith("#"))) {
+                    res.add(new File(line));
+                }
+            }
+            return res;
+        } finally {
+            if (null != reader) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Appends rows to the results CSV file, header is written if the file is new,
+     * each row is flushed immediately so results of the finished JDKs are kept
+     * if the run is interrupted
+     */
+    private static class CsvAppender {
+        private final File file;
+
+        CsvAppender(File file) {
+            this.file = file;
+        }
+
+        synchronized void append(String[] row) throws IOException {
+            boolean exists = file.exists() && file.length() > 0;
+            Writer writer = null;
+            try {
+                writer = new BufferedWriter(new FileWriter(file, true));
+                if (!exists) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(row[i]);
+                }
+                writer.write('\n');
+            } finally {
+                if (null != writer) {
+                    writer.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+/*
+ * malloc interposer library, should be loaded into the worker process with LD_PRELOAD.
+ *
+ * Counts malloc/calloc/realloc calls whose call stack contains zlib's "inflate"
+ * function or "Java_java_util_zip_Inflater_inflate*" JNI functions (the latter
+ * is used when JDK is built with bundled zlib that does not export its symbols).
+ * Only "updatewindow" allocates memory inside "inflate", so these counts are
+ * the counts of "updatewindow" allocations. Frees of counted pointers are also counted.
+ *
+ * Counters are written on process exit to a file specified with
+ * INFLATER_ALLOC_PRELOAD_OUT environment variable in java.util.Properties format.
+ * If INFLATER_ALLOC_PRELOAD_COUNTERS environment variable is set, counters are
+ * kept in a shared memory-mapped file with this name as three native-endian
+ * 64-bit values (mallocs, bytes, frees), so the worker can read them while running.
+ *
+ * Build with: cc -shared -fPIC -O2 -o libInflaterAllocPreload.so InflaterAllocPreload.c -ldl
+ */
+
+#define _GNU_SOURCE
+
+#include <dlfcn.h>
+#include <execinfo.h>
+#include <fcntl.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/mman.h>
+#include <unistd.h>
+
+#define MAX_FRAMES 12
+#define FRAME_CACHE_SIZE 4096
+#define TRACKED_SIZE 4096
+
+#define FRAME_OTHER 1
+#define FRAME_INFLATE 2
+
+#define JNI_INFLATE_PREFIX "Java_java_util_zip_Inflater_inflate"
+
+extern void *__libc_malloc(size_t size);
+extern void *__libc_calloc(size_t nmemb, size_t size);
+extern void *__libc_realloc(void *ptr, size_t size);
+extern void __libc_free(void *ptr);
+
+static __thread int in_hook = 0;
+static int initialized = 0;
+
+typedef struct counters {
+    volatile int64_t mallocs;
+    volatile int64_t bytes;
+    volatile int64_t frees;
+} counters;
+
+static counters local_counters;
+static counters *counters_ptr = &local_counters;
+static volatile long tracked_count = 0;
+
+/* return address -> frame class, stored as (address << 2) | class */
+static volatile uintptr_t frame_cache[FRAME_CACHE_SIZE];
+/* pointers returned by counted allocations */
+static void *volatile tracked[TRACKED_SIZE];
+
+static int classify_frame(void *addr) {
+    uintptr_t key = (uintptr_t) addr;
+    size_t idx = (key ^ (key >> 12)) & (FRAME_CACHE_SIZE - 1);
+    uintptr_t entry = frame_cache[idx];
+    if ((entry >> 2) == key) {
+        return (int) (entry & 3);
+    }
+    int cls = FRAME_OTHER;
+    Dl_info info;
+    if (dladdr(addr, &info) && NULL != info.dli_sname) {
+        if (0 == strcmp(info.dli_sname, "inflate") ||
+                0 == strncmp(info.dli_sname, JNI_INFLATE_PREFIX, sizeof(JNI_INFLATE_PREFIX) - 1)) {
+            cls = FRAME_INFLATE;
+        }
+    }
+    frame_cache[idx] = (key << 2) | cls;
+    return cls;
+}
+
+static int called_from_inflate(void) {
+    void *frames[MAX_FRAMES];
+    int count = backtrace(frames, MAX_FRAMES);
+    int i;
+    for (i = 1; i < count; i++) {
+        if (FRAME_INFLATE == classify_frame(frames[i])) {
+            return 1;
+        }
+    }
+    return 0;
+}
+
+static void track(void *ptr) {
+    size_t idx = ((uintptr_t) ptr >> 4) & (TRACKED_SIZE - 1);
+    size_t i;
+    for (i = 0; i < TRACKED_SIZE; i++) {
+        size_t slot = (idx + i) & (TRACKED_SIZE - 1);
+        if (__sync_bool_compare_and_swap(&tracked[slot], NULL, ptr)) {
+            __sync_fetch_and_add(&tracked_count, 1);
+            return;
+        }
+    }
+}
+
+static void untrack(void *ptr) {
+    size_t idx = ((uintptr_t) ptr >> 4) & (TRACKED_SIZE - 1);
+    size_t i;
+    for (i = 0; i < TRACKED_SIZE; i++) {
+        size_t slot = (idx + i) & (TRACKED_SIZE - 1);
+        if (tracked[slot] == ptr && __sync_bool_compare_and_swap(&tracked[slot], ptr, NULL)) {
+            __sync_fetch_and_sub(&tracked_count, 1);
+            __sync_fetch_and_add(&counters_ptr->frees, 1);
+            return;
+        }
+    }
+}
+
+static void on_alloc(void *ptr, size_t size) {
+    if (NULL == ptr || !initialized || in_hook) {
+        return;
+    }
+    in_hook = 1;
+    if (called_from_inflate()) {
+        __sync_fetch_and_add(&counters_ptr->mallocs, 1);
+        __sync_fetch_and_add(&counters_ptr->bytes, (int64_t) size);
+        track(ptr);
+    }
+    in_hook = 0;
+}
+
+static void on_free(void *ptr) {
+    if (NULL != ptr && 0 != tracked_count) {
+        untrack(ptr);
+    }
+}
+
+void *malloc(size_t size) {
+    void *res = __libc_malloc(size);
+    on_alloc(res, size);
+    return res;
+}
+
+void *calloc(size_t nmemb, size_t size) {
+    void *res = __libc_calloc(nmemb, size);
+    on_alloc(res, nmemb * size);
+    return res;
+}
+
+void *realloc(void *ptr, size_t size) {
+    on_free(ptr);
+    void *res = __libc_realloc(ptr, size);
+    on_alloc(res, size);
+    return res;
+}
+
+void free(void *ptr) {
+    on_free(ptr);
+    __libc_free(ptr);
+}
+
+static void map_counters(const char *path) {
+    int fd = open(path, O_RDWR | O_CREAT | O_TRUNC, 0644);
+    if (-1 == fd) {
+        return;
+    }
+    if (0 == ftruncate(fd, sizeof(counters))) {
+        void *addr = mmap(NULL, sizeof(counters), PROT_READ | PROT_WRITE, MAP_SHARED, fd, 0);
+        if (MAP_FAILED != addr) {
+            counters_ptr = (counters *) addr;
+        }
+    }
+    close(fd);
+}
+
+__attribute__((constructor))
+static void preload_init(void) {
+    /* first backtrace call loads libgcc_s, do it before enabling the hook */
+    void *frames[MAX_FRAMES];
+    backtrace(frames, MAX_FRAMES);
+    const char *path = getenv("INFLATER_ALLOC_PRELOAD_COUNTERS");
+    if (NULL != path) {
+        map_counters(path);
+    }
+    initialized = 1;
+}
+
+__attribute__((destructor))
+static void preload_write_counters(void) {
+    const char *path = getenv("INFLATER_ALLOC_PRELOAD_OUT");
+    if (NULL == path) {
+        return;
+    }
+    in_hook = 1;
+    FILE *out = fopen(path, "w");
+    if (NULL == out) {
+        return;
+    }
+    fprintf(out, "mallocs=%lld\nbytes=%lld\nfrees=%lld\n", (long long) counters_ptr->mallocs,
+            (long long) counters_ptr->bytes, (long long) counters_ptr->frees);
+    fclose(out);
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 7)
+ * @summary Same check as InflaterAllocTest, but instead of running workers under
+ *          memcheck (valgrind) loads the InflaterAllocPreload.c malloc interposer library,
+ *          compiled by the test, into them with LD_PRELOAD. Interposer counts allocations
+ *          with zlib's "inflate" function on the call stack.
+ *
+ *          Workers run with near-native speed, C compiler is required, valgrind
+ *          and zlib-debuginfo are not required. Besides "inflate" mode checks
+ *          "concurrent" mode inflating in a single pass from 32 threads.
+ *
+ * @compile InflaterAllocWorker.java
+ * @build InflaterAllocTest MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main InflaterAllocPreloadTest
+ */
+public class InflaterAllocPreloadTest {
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args none
+     */
+    public static void main(String[] args) throws Exception {
+        InflaterAllocTest.main(new String[]{"preload", "parallel", "cache", "inflate", "concurrent"});
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 7)
+ * @summary Same check as InflaterAllocTest, but workers take native memory snapshots
+ *          in-process right before and after the inflating and the test compares
+ *          their differences. zlib's allocations are not visible to JVM's Native Memory
+ *          Tracking, so they are taken from the InflaterAllocPreload.c malloc interposer
+ *          library live counters, NMT committed memory and RSS differences are reported.
+ *
+ *          Only allocations done by the inflating itself are counted, so "inflate" mode
+ *          must have no allocations, same as "noinflate" mode. C compiler is required,
+ *          valgrind and zlib-debuginfo are not required.
+ *
+ * @compile InflaterAllocWorker.java
+ * @build InflaterAllocTest NativeMemorySnapshot PreloadCounters MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main InflaterAllocSnapshotTest
+ */
+public class InflaterAllocSnapshotTest {
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args none
+     */
+    public static void main(String[] args) throws Exception {
+        InflaterAllocTest.main(new String[]{"snapshot", "parallel", "cache"});
+    }
+}
@@ -17,16 +17,9 @@
  *
  */
 
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.DefaultHandler;
-
-import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
-
-import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @test
@@ -48,56 +41,341 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  *          For test to success number of leaks from "noinflate" and "inflate" runs
  *          must be the same.
  *
+ *          With "parallel" argument all three workers are started at once
+ *          on a thread pool bounded by the number of available cores.
+ *          With "preload" argument workers are run with malloc interposer library
+ *          instead of memcheck, see InflaterAllocPreloadTest.
+ *          With "snapshot" argument workers take in-process native memory snapshots
+ *          around the inflating, see InflaterAllocSnapshotTest.
+ *          With "cache" argument leak counts of the baseline modes are reused
+ *          from previous runs with the same JDK, zlib, worker classes and input file,
+ *          see WorkerResultCache.
+ *
  *         Compiled version of the http://hg.openjdk.java.net/jdk7u/jdk7u/jaxp/file/b5c74ec32065/src/com/sun/org/apache/xerces/internal/impl/xs/traversers/XSDHandler.java
  *         class is used as a test input ZIP file.
  *
  * @compile InflaterAllocWorker.java
- * @run main InflaterAllocTest
+ * @build MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main InflaterAllocTest parallel cache
  * @author akashche@redhat.com
  */
 public class InflaterAllocTest {
-    private static final File MEMCHECK_SMALLBUF_OUT = new File("InflaterAllocWorker.smallbuf.memcheck.xml");
-    private static final File MEMCHECK_INFLATE_OUT = new File("InflaterAllocWorker.inflate.memcheck.xml");
-    private static final File MEMCHECK_NO_INFLATE_OUT = new File("InflaterAllocWorker.noinflate.memcheck.xml");
+    static final String SIGNATURE_UPDATEWINDOW = "updatewindow";
+    static final String SIGNATURE_DEFLATER = "Deflater";
+    static final String SIGNATURE_DEFLATE_INIT = "deflateInit2_";
+    private static final String WORKER = "InflaterAllocWorker";
+    private static final File PRELOAD_LIBRARY = new File("libInflaterAllocPreload.so");
+    // classes that worker results depend on, nested classes are included
+    private static final String[] CACHED_CLASSES = {WORKER, "InflaterPool", "InflaterBuffers", "PreloadCounters",
+            "NativeMemorySnapshot", "SinglePassInflater", "SyntheticCorpus", "ParallelGzipInflater", "DeflaterAllocWorker",
+            "VirtualThreadInflater", "ZipCentralDirectory", "MemcheckXmlScanner", "StackSignatureIndex"};
+
+    /**
+     * Backend used to detect 'updatewindow' allocations in worker process
+     */
+    enum Backend {
+        MEMCHECK(".memcheck.xml"),
+        PRELOAD(".preload.properties"),
+        SNAPSHOT(".snapshot.properties");
+
+        private final String outSuffix;
+
+        Backend(String outSuffix) {
+            this.outSuffix = outSuffix;
+        }
+
+        File outFile(String worker, String mode) {
+            return new File(worker + "." + mode + outSuffix);
+        }
+    }
 
     /**
      * Intented to be run with jtreg
      *
-     * @param args none
+     * @param args optional arguments: 'parallel' to run all workers at once,
+     *             'preload' to use malloc interposer library instead of memcheck,
+     *             'snapshot' to use in-process native memory snapshots instead of memcheck,
+     *             'cache' to reuse baseline modes leak counts from previous runs,
+     *             any other arguments are worker modes to check instead of 'inflate',
+     *             each of them is compared with 'noinflate' mode, or with other
+     *             baseline mode if specified as 'mode=baseline'
      */
     public static void main(String[] args) throws Exception {
-        // run in smallbuf mode causing 'updatewindow' leak on any zlib version
-        System.out.println("Starting worker in 'smallbuf' mode");
-        runWorker("smallbuf", MEMCHECK_SMALLBUF_OUT);
-        int smallbufLeaks = countLeaks(MEMCHECK_SMALLBUF_OUT);
-        if (0 == smallbufLeaks) {
-            throw new RuntimeException("Test failed," +
-                    " 'smallbuf' mode leaks were not detected, check: [" + MEMCHECK_SMALLBUF_OUT + "],");
-        }
-        System.out.println("'smallbuf' leaks count: [" + smallbufLeaks + "]");
-
-        // run in 'noinflate' mode without 'updatewindow' leaks
-        System.out.println("Starting worker in 'noinflate' mode");
-        runWorker("noinflate", MEMCHECK_NO_INFLATE_OUT);
-        int noInflateLeaks = countLeaks(MEMCHECK_NO_INFLATE_OUT);
-        System.out.println("'noinflate' leaks count: [" + noInflateLeaks + "]");
-
-        // run in 'inflate' mode causing 'updatewindow' leaks only on unpatched jdk
-        System.out.println("Starting worker in 'inflate' mode");
-        runWorker("inflate", MEMCHECK_INFLATE_OUT);
-        int inflateLeaks = countLeaks(MEMCHECK_INFLATE_OUT);
-        System.out.println("'inflate' leaks count: [" + inflateLeaks + "]");
-
-        // check 'inflate' leaks count
-        if (inflateLeaks != noInflateLeaks) {
-            throw new RuntimeException("Test failed," +
-                    " 'noinflate' mode leaks count: [" + noInflateLeaks + "]," +
-                    " 'inflate' mode leaks count: [" + inflateLeaks + "]");
+        List<String> options = Arrays.asList(args);
+        boolean parallel = options.contains("parallel");
+        Backend backend = options.contains("preload") ? Backend.PRELOAD :
+                options.contains("snapshot") ? Backend.SNAPSHOT : Backend.MEMCHECK;
+        Map<String, String> checkedModes = new LinkedHashMap<String, String>();
+        for (String op : options) {
+            if (!("parallel".equals(op) || "preload".equals(op) || "snapshot".equals(op) || "cache".equals(op))) {
+                String[] parts = op.split("=", 2);
+                checkedModes.put(parts[0], parts.length > 1 ? parts[1] : "noinflate");
+            }
+        }
+        if (checkedModes.isEmpty()) {
+            checkedModes.put("inflate", "noinflate");
+        }
+        // baselines are run before checked modes
+        Set<String> modes = new LinkedHashSet<String>();
+        modes.add("smallbuf");
+        modes.add("noinflate");
+        modes.addAll(checkedModes.values());
+        modes.addAll(checkedModes.keySet());
+        // baselines found in cache are not run
+        Map<String, Long> cachedCounts = new HashMap<String, Long>();
+        WorkerResultCache cache = null;
+        if (options.contains("cache")) {
+            cache = openCache(backend, WORKER);
+            for (String mode : modes) {
+                Long cached = checkedModes.containsKey(mode) ? null : cache.get(mode);
+                if (null != cached) {
+                    cachedCounts.put(mode, cached);
+                }
+            }
+            if (!cachedCounts.isEmpty()) {
+                System.out.println("Using cached results for " + cachedCounts.keySet() + " modes" +
+                        " from: [" + cache.getFile() + "]");
+            }
+        }
+        List<String> runModes = new ArrayList<String>(modes);
+        runModes.removeAll(cachedCounts.keySet());
+        if (Backend.PRELOAD == backend || Backend.SNAPSHOT == backend) {
+            System.out.println("Building malloc interposer library: [" + PRELOAD_LIBRARY + "]");
+            buildPreloadLibrary();
+        }
+        if (parallel) {
+            System.out.println("Starting workers in " + runModes + " modes in parallel");
+            runWorkersParallel(backend, WORKER, runModes);
+        }
+
+        Map<String, Long> leaksCounts = new HashMap<String, Long>();
+        for (String mode : modes) {
+            File out = backend.outFile(WORKER, mode);
+            Long cached = cachedCounts.get(mode);
+            if (!(parallel || null != cached)) {
+                System.out.println("Starting worker in '" + mode + "' mode");
+                runWorker(backend, WORKER, mode, out);
+            }
+            long leaks = null != cached ? cached : countLeaks(backend, out);
+            // 'smallbuf' mode causes 'updatewindow' leak on any zlib version
+            if ("smallbuf".equals(mode) && 0 == leaks) {
+                throw new RuntimeException("Test failed," +
+                        " 'smallbuf' mode leaks were not detected, check: [" + out + "],");
+            }
+            System.out.println("'" + mode + "' leaks count: [" + leaks + "]" + (null != cached ? " (cached)" : ""));
+            leaksCounts.put(mode, leaks);
+            if (null != cache && null == cached && !checkedModes.containsKey(mode)) {
+                cache.put(mode, leaks);
+            }
+
+            // checked modes ('inflate' by default) cause 'updatewindow' leaks only on unpatched jdk
+            String baseline = checkedModes.get(mode);
+            if (null != baseline && leaks != leaksCounts.get(baseline)) {
+                throw new RuntimeException("Test failed," +
+                        " '" + baseline + "' mode leaks count: [" + leaksCounts.get(baseline) + "]," +
+                        " '" + mode + "' mode leaks count: [" + leaks + "]");
+            }
         }
 
         System.out.println("Test passed");
     }
 
+    /**
+     * Runs worker process using specified backend
+     *
+     * @param backend backend to use
+     * @param worker worker class name
+     * @param mode worker mode, see {@link #runWorkerMemcheck(String, String, File)}
+     * @param out backend's output file
+     */
+    static void runWorker(Backend backend, String worker, String mode, File out) throws Exception {
+        switch (backend) {
+            case MEMCHECK:
+                runWorkerMemcheck(worker, mode, out);
+                break;
+            case PRELOAD:
+                runWorkerPreload(worker, mode, out);
+                break;
+            case SNAPSHOT:
+                runWorkerSnapshot(worker, mode, out);
+                break;
+            default:
+                throw new RuntimeException("Unsupported backend: [" + backend + "]");
+        }
+    }
+
+    /**
+     * Counts 'updatewindow' allocations in a specified backend's output file
+     *
+     * @param backend backend used to run the worker
+     * @param out backend's output file
+     * @return number of 'updatewindow' allocations found
+     */
+    static long countLeaks(Backend backend, File out) throws Exception {
+        switch (backend) {
+            case MEMCHECK:
+                return scanLeaks(out).getBlocks(SIGNATURE_UPDATEWINDOW);
+            case PRELOAD:
+                return countPreloadLeaks(out);
+            case SNAPSHOT:
+                return countSnapshotLeaks(out);
+            default:
+                throw new RuntimeException("Unsupported backend: [" + backend + "]");
+        }
+    }
+
+    /**
+     * Opens the results cache keyed by a hash of the java executable, JDK's libzip,
+     * system zlib loaded by libzip, worker classes, input file, (for 'memcheck' backend)
+     * valgrind version and zlib's debuginfo files and (for 'preload' backend) interposer
+     * library source. 'smallbuf' result is cached too, it is re-validated every time
+     * the key changes, e.g. when zlib's debuginfo is installed or removed.
+     * Cache directory is specified with "inflater.alloc.cache.dir" system property,
+     * "~/.cache/InflaterAllocTest" is used by default, so results survive cleaning
+     * of jtreg's scratch directory.
+     *
+     * @param backend backend used to run the workers
+     * @param worker worker class name
+     * @return results cache
+     */
+    static WorkerResultCache openCache(Backend backend, String worker) throws Exception {
+        File javaHome = new File(System.getProperty("test.jdk"));
+        File classes = new File(System.getProperty("test.classes"));
+        File src = new File(System.getProperty("test.src"));
+        List<File> files = new ArrayList<File>();
+        files.add(findJava());
+        File libzip = findJdkLibrary(javaHome, "libzip.so");
+        files.add(libzip);
+        // JDKs built with bundled zlib have it inside libzip
+        File libz = findLinkedLibrary(libzip, "libz.so");
+        if (null != libz) {
+            files.add(libz.getCanonicalFile());
+            if (Backend.MEMCHECK == backend) {
+                files.addAll(findDebugInfo(libz.getCanonicalFile()));
+            }
+        }
+        File[] classFiles = classes.listFiles();
+        if (null != classFiles) {
+            Arrays.sort(classFiles);
+            for (File fi : classFiles) {
+                for (String cl : CACHED_CLASSES) {
+                    if (fi.getName().equals(cl + ".class") || fi.getName().startsWith(cl + "$")) {
+                        files.add(fi);
+                    }
+                }
+            }
+        }
+        files.add(new File(src, "XSDHandler.class.zip"));
+        if (Backend.PRELOAD == backend || Backend.SNAPSHOT == backend) {
+            files.add(new File(src, "InflaterAllocPreload.c"));
+        }
+        String salt = backend + ":" + worker;
+        if (Backend.MEMCHECK == backend) {
+            salt += ":" + readCommandOutput(findValgrind().getAbsolutePath(), "--version").trim();
+        }
+        File dir = new File(System.getProperty("inflater.alloc.cache.dir",
+                System.getProperty("user.home") + File.separator + ".cache" + File.separator + "InflaterAllocTest"));
+        return new WorkerResultCache(dir, WorkerResultCache.hashFiles(salt, files));
+    }
+
+    /**
+     * Finds separate debuginfo files of the specified library under "/usr/lib/debug",
+     * e.g. "/usr/lib/debug/usr/lib64/libz.so.1.2.11-1.fc35.x86_64.debug"
+     *
+     * @param library shared library
+     * @return debuginfo files, empty list if debuginfo is not installed
+     */
+    private static List<File> findDebugInfo(File library) {
+        List<File> res = new ArrayList<File>();
+        File dir = new File("/usr/lib/debug" + library.getParent());
+        File[] children = dir.listFiles();
+        if (null != children) {
+            Arrays.sort(children);
+            for (File fi : children) {
+                if (fi.getName().startsWith(library.getName()) && fi.isFile()) {
+                    res.add(fi);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Finds a shared library the specified library is linked with using 'ldd'
+     *
+     * @param library library to check
+     * @param prefix file name prefix of the linked library, e.g. "libz.so"
+     * @return path to the linked library, null if it is not linked
+     */
+    private static File findLinkedLibrary(File library, String prefix) throws Exception {
+        String output = readCommandOutput("ldd", library.getAbsolutePath());
+        for (String line : output.split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            // "libz.so.1 => /lib64/libz.so.1 (0x00007f...)"
+            if (parts.length >= 3 && parts[0].startsWith(prefix) && "=>".equals(parts[1])) {
+                return new File(parts[2]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the specified command and returns its output
+     *
+     * @param command command and its arguments
+     * @return standard output and error of the command
+     */
+    private static String readCommandOutput(String... command) throws Exception {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        InputStream is = process.getInputStream();
+        try {
+            byte[] buf = new byte[4096];
+            int read;
+            while (-1 != (read = is.read(buf))) {
+                baos.write(buf, 0, read);
+            }
+        } finally {
+            closeQuietly(is);
+        }
+        int code = process.waitFor();
+        if (0 != code) {
+            throw new RuntimeException("Test error: command " + Arrays.toString(command) +
+                    " returned code: [" + code + "], output: [" + baos.toString("UTF-8") + "]");
+        }
+        return baos.toString("UTF-8");
+    }
+
+    /**
+     * Returns a path to the native library in the specified JDK
+     *
+     * @param javaHome JDK home
+     * @param name library file name
+     * @return path to the library, path under "lib" if not found
+     */
+    private static File findJdkLibrary(File javaHome, String name) {
+        File lib = new File(javaHome, "lib");
+        List<File> dirs = new ArrayList<File>();
+        dirs.add(lib);
+        // jdk8 and older keep libraries in "[jre/]lib/[arch]"
+        for (File dir : new File[]{new File(javaHome, "jre" + File.separator + "lib"), lib}) {
+            File[] children = dir.listFiles();
+            if (null != children) {
+                Arrays.sort(children);
+                dirs.addAll(Arrays.asList(children));
+            }
+        }
+        for (File dir : dirs) {
+            File fi = new File(dir, name);
+            if (fi.isFile()) {
+                return fi;
+            }
+        }
+        return new File(lib, name);
+    }
+
     /**
      * Runs process with a command:
      * {@code
@@ -109,7 +387,7 @@ public class InflaterAllocTest {
      *     --xml-file=[out] \
      *     /path/to/java \
      *     -cp [test.classes] \
-     *     InflaterAllocWorker \
+     *     [worker] \
      *     /path/to/XSDHandler.class.zip \
      *     [mode]
      * }
@@ -117,53 +395,315 @@ public class InflaterAllocTest {
      * @param mode 'inflate', 'smallbuf' or 'noinflate':
      *             'inflate' mode inflates in a single pass,
      *             'smallbuf' mode inflates doing multiple passes,
-     *             'noinflate' (or any other mode) is a no-op
+     *             'noinflate' (or any other mode) is a no-op,
+     *             see InflaterAllocWorker and DeflaterAllocWorker for other modes
+     * @param worker worker class name
      * @param out memcheck's output XML file
      */
-    private static void runWorker(String mode, File out) throws Exception {
+    private static void runWorkerMemcheck(String worker, String mode, File out) throws Exception {
         File java = findJava();
         File classpath = new File(System.getProperty("test.classes"));
         File inputFile = new File(System.getProperty("test.src"), "XSDHandler.class.zip");
-        File workerOutFile = new File("InflaterAllocWorker." + mode + ".out");
+        File workerOutFile = new File(worker + "." + mode + ".out");
         File valgrind = findValgrind();
-        int inflateCode = new ProcessBuilder(valgrind.getAbsolutePath(),
+        Process process = new ProcessBuilder(valgrind.getAbsolutePath(),
                 // valgrind options
                 "--tool=memcheck", "--leak-check=yes", "--show-reachable=yes",
                 "--xml=yes", "--xml-file=" + out.getAbsolutePath(),
                 // java executable
                 java.getAbsolutePath(),
                 // java options
-                "-cp", classpath.getAbsolutePath(), "InflaterAllocWorker",
+                "-cp", classpath.getAbsolutePath(), worker,
                 // worker process options
                 inputFile.getAbsolutePath(), mode)
                 .redirectErrorStream(true)
                 .redirectOutput(ProcessBuilder.Redirect.appendTo(workerOutFile))
-                .start()
-                .waitFor();
+                .start();
+        waitForWorker(process, mode);
+    }
+
+    /**
+     * Runs process with a command:
+     * {@code
+     * LD_PRELOAD=/path/to/libInflaterAllocPreload.so \
+     * INFLATER_ALLOC_PRELOAD_OUT=[out] \
+     * INFLATER_ALLOC_PRELOAD_COUNTERS=[out].counters \
+     * /path/to/java \
+     *     -cp [test.classes] \
+     *     [worker] \
+     *     /path/to/XSDHandler.class.zip \
+     *     [mode]
+     * }
+     *
+     * Interposer library counts allocations with 'inflate' function on the call stack
+     * and writes counters to 'out' file on exit, worker runs with near-native speed.
+     * Counters are also shared with the worker through '[out].counters' file, so it can
+     * report allocations done by the part of its run (see {@link PreloadCounters}).
+     *
+     * @param worker worker class name
+     * @param mode 'inflate', 'smallbuf' or 'noinflate', see {@link #runWorkerMemcheck(String, String, File)}
+     * @param out counters output file
+     */
+    private static void runWorkerPreload(String worker, String mode, File out) throws Exception {
+        File java = findJava();
+        File classpath = new File(System.getProperty("test.classes"));
+        File inputFile = new File(System.getProperty("test.src"), "XSDHandler.class.zip");
+        File workerOutFile = new File(worker + "." + mode + ".out");
+        ProcessBuilder pb = new ProcessBuilder(java.getAbsolutePath(),
+                // java options
+                "-cp", classpath.getAbsolutePath(), worker,
+                // worker process options
+                inputFile.getAbsolutePath(), mode)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(workerOutFile));
+        pb.environment().put("LD_PRELOAD", PRELOAD_LIBRARY.getAbsolutePath());
+        pb.environment().put("INFLATER_ALLOC_PRELOAD_OUT", out.getAbsolutePath());
+        pb.environment().put("INFLATER_ALLOC_PRELOAD_COUNTERS", out.getAbsolutePath() + ".counters");
+        if (out.exists() && !out.delete()) {
+            throw new RuntimeException("Test error: cannot delete stale output file: [" + out.getAbsolutePath() + "]");
+        }
+        waitForWorker(pb.start(), mode);
+    }
+
+    /**
+     * Runs process with a command:
+     * {@code
+     * LD_PRELOAD=/path/to/libInflaterAllocPreload.so \
+     * INFLATER_ALLOC_PRELOAD_COUNTERS=[out].counters \
+     * /path/to/java \
+     *     -XX:NativeMemoryTracking=summary \
+     *     -Dinflater.alloc.snapshot=[out] \
+     *     -cp [test.classes] \
+     *     [worker] \
+     *     /path/to/XSDHandler.class.zip \
+     *     [mode]
+     * }
+     *
+     * Worker takes native memory snapshots before and after the inflating and writes
+     * their differences to 'out' file, so only allocations done by the inflating itself
+     * are counted. Only 'inflate', 'smallbuf' and 'noinflate' modes are supported.
+     *
+     * @param worker worker class name
+     * @param mode 'inflate', 'smallbuf' or 'noinflate', see {@link #runWorkerMemcheck(String, String, File)}
+     * @param out snapshots delta output file
+     */
+    private static void runWorkerSnapshot(String worker, String mode, File out) throws Exception {
+        File java = findJava();
+        File classpath = new File(System.getProperty("test.classes"));
+        File inputFile = new File(System.getProperty("test.src"), "XSDHandler.class.zip");
+        File workerOutFile = new File(worker + "." + mode + ".out");
+        ProcessBuilder pb = new ProcessBuilder(java.getAbsolutePath(),
+                // java options
+                "-XX:NativeMemoryTracking=summary",
+                "-Dinflater.alloc.snapshot=" + out.getAbsolutePath(),
+                "-cp", classpath.getAbsolutePath(), worker,
+                // worker process options
+                inputFile.getAbsolutePath(), mode)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(workerOutFile));
+        pb.environment().put("LD_PRELOAD", PRELOAD_LIBRARY.getAbsolutePath());
+        pb.environment().put("INFLATER_ALLOC_PRELOAD_COUNTERS", out.getAbsolutePath() + ".counters");
+        if (out.exists() && !out.delete()) {
+            throw new RuntimeException("Test error: cannot delete stale output file: [" + out.getAbsolutePath() + "]");
+        }
+        waitForWorker(pb.start(), mode);
+    }
+
+    /**
+     * Waits for the worker process to exit, destroys the process
+     * if waiting thread was interrupted
+     *
+     * @param process worker process
+     * @param mode worker mode
+     */
+    private static void waitForWorker(Process process, String mode) throws Exception {
+        int inflateCode;
+        try {
+            inflateCode = process.waitFor();
+        } catch (InterruptedException e) {
+            // other parallel worker failed, do not leave the worker running
+            process.destroy();
+            throw e;
+        }
         if (0 != inflateCode) {
             throw new RuntimeException("Test error: [" + mode + "] subprocess returned code: [" + inflateCode + "]");
         }
     }
 
     /**
-     * count a number of 'updatewindow' leaks in a specified XML file
+     * Compiles InflaterAllocPreload.c from the test sources into a shared library
+     */
+    static void buildPreloadLibrary() throws Exception {
+        File source = new File(System.getProperty("test.src"), "InflaterAllocPreload.c");
+        File buildOutFile = new File("InflaterAllocPreload.build.out");
+        int code = new ProcessBuilder(findCompiler().getAbsolutePath(),
+                "-shared", "-fPIC", "-O2",
+                "-o", PRELOAD_LIBRARY.getAbsolutePath(),
+                source.getAbsolutePath(), "-ldl")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(buildOutFile))
+                .start()
+                .waitFor();
+        if (0 != code) {
+            throw new RuntimeException("Test error: cannot compile malloc interposer library," +
+                    " compiler returned code: [" + code + "], check: [" + buildOutFile + "]");
+        }
+    }
+
+    /**
+     * Runs workers for all specified modes at once using a thread pool
+     * bounded by the number of available cores, each worker writes its own
+     * backend output and ".out" files. Returns after all workers have finished,
+     * first failure is rethrown and remaining workers are stopped.
+     *
+     * @param backend backend to use
+     * @param worker worker class name
+     * @param modes worker modes, see {@link #runWorkerMemcheck(String, String, File)}
+     */
+    static void runWorkersParallel(Backend backend, String worker, List<String> modes) throws Exception {
+        int threads = Math.min(modes.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (String mode : modes) {
+                futures.add(executor.submit(new WorkerCallable(backend, worker, mode, backend.outFile(worker, mode))));
+            }
+            for (int i = 0; i < modes.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new RuntimeException("Test error: [" + modes.get(i) + "] subprocess failed", cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Scans a specified XML file for leaks of zlib's native allocation sites and reports them,
+     * 'updatewindow' leak is a <stack> element with four consecutive <fn> entries:
+     * malloc <- updatewindow <- inflate <- Java_java_util_zip_Inflater_inflate*
+     * Leaked blocks should be counted, not loss records, as memcheck merges blocks
+     * allocated with the same stack into a single loss record.
      *
      * @param file XML file with memcheck's output
-     * @return number of 'updatewindow' leaks found
+     * @return index with leaks found for each signature
+     */
+    static StackSignatureIndex scanLeaks(File file) throws Exception {
+        StackSignatureIndex index = createSignatureIndex();
+        new MemcheckXmlScanner(index).scan(file);
+        for (String name : index.getNames()) {
+            System.out.println("[" + file.getName() + "] signature: [" + name + "]," +
+                    " stacks: [" + index.getCount(name) + "]," +
+                    " bytes: [" + index.getBytes(name) + "]," +
+                    " blocks: [" + index.getBlocks(name) + "]");
+        }
+        return index;
+    }
+
+    /**
+     * Creates an index with stack signatures of zlib's native allocation sites,
+     * "Java_java_util_zip_Inflater_inflate*" matches "inflateBytes" and also
+     * "inflateBytesBytes", "inflateBufferBuffer" and other variants used in jdk11 and later,
+     * 'Deflater' signature matches any allocation that has any of Deflater's JNI functions
+     * on its stack, also with other frames between the JNI function and zlib
+     *
+     * @return signatures index
+     */
+    private static StackSignatureIndex createSignatureIndex() {
+        StackSignatureIndex index = new StackSignatureIndex();
+        index.add(SIGNATURE_UPDATEWINDOW, "malloc", "updatewindow", "inflate", "Java_java_util_zip_Inflater_inflate*");
+        index.add("inflateInit2_", "malloc", "inflateInit2_", "Java_java_util_zip_Inflater_init");
+        index.add(SIGNATURE_DEFLATE_INIT, "malloc", "deflateInit2_", "Java_java_util_zip_Deflater_init");
+        index.add(SIGNATURE_DEFLATER, "Java_java_util_zip_Deflater_*");
+        return index;
+    }
+
+    /**
+     * Reads the number of 'updatewindow' allocations from the interposer library counters file
+     *
+     * @param file counters file written by the interposer library
+     * @return number of 'updatewindow' allocations
+     */
+    private static long countPreloadLeaks(File file) throws Exception {
+        Properties counters = readPreloadCounters(file);
+        System.out.println("[" + file.getName() + "] mallocs: [" + counters.getProperty("mallocs") + "]," +
+                " bytes: [" + counters.getProperty("bytes") + "]," +
+                " frees: [" + counters.getProperty("frees") + "]");
+        return Long.parseLong(counters.getProperty("mallocs"));
+    }
+
+    /**
+     * Reads the interposer library counters file
+     *
+     * @param file counters file written by the interposer library
+     * @return 'mallocs', 'bytes' and 'frees' counters
+     */
+    static Properties readPreloadCounters(File file) throws Exception {
+        if (!file.exists()) {
+            throw new RuntimeException("Test error: counters file not found: [" + file.getAbsolutePath() + "]," +
+                    " interposer library was not loaded");
+        }
+        return loadProperties(file);
+    }
+
+    /**
+     * Reads the number of 'updatewindow' allocations from the native memory snapshots delta file
+     *
+     * @param file snapshots delta file written by the worker
+     * @return number of 'updatewindow' allocations done by the inflating
      */
-    private static int countLeaks(File file) throws Exception{
-        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
-        UpdatewindowLeaskCountHandler ha = new UpdatewindowLeaskCountHandler();
-        xmlReader.setContentHandler(ha);
+    private static long countSnapshotLeaks(File file) throws Exception {
+        if (!file.exists()) {
+            throw new RuntimeException("Test error: snapshot file not found: [" + file.getAbsolutePath() + "]," +
+                    " worker mode does not support snapshots");
+        }
+        Properties delta = loadProperties(file);
+        System.out.println("[" + file.getName() + "] mallocs: [" + delta.getProperty("mallocs") + "]," +
+                " bytes: [" + delta.getProperty("bytes") + "]," +
+                " frees: [" + delta.getProperty("frees") + "]," +
+                " NMT committed: [" + delta.getProperty("nmtCommittedKb") + "] kB," +
+                " RSS: [" + delta.getProperty("rssKb") + "] kB");
+        long mallocs = Long.parseLong(delta.getProperty("mallocs"));
+        if (mallocs < 0) {
+            throw new RuntimeException("Test error: interposer counters are not available in: [" + file.getAbsolutePath() + "]");
+        }
+        return mallocs;
+    }
+
+    private static Properties loadProperties(File file) throws Exception {
+        Properties props = new Properties();
         InputStream is = null;
         try {
             is = new FileInputStream(file);
-            Reader reader = new BufferedReader(new InputStreamReader(is, UTF_8));
-            xmlReader.parse(new InputSource(reader));
+            props.load(is);
         } finally {
             closeQuietly(is);
         }
-        return ha.getLeaksCount();
+        return props;
+    }
+
+    /**
+     * Returns a path to the C compiler executable
+     *
+     * @return path to the C compiler executable
+     */
+    private static File findCompiler() {
+        File cc = new File("/usr/bin/cc");
+        if (cc.exists() && cc.isFile()) {
+            return cc;
+        }
+        File gcc = new File("/usr/bin/gcc");
+        if (gcc.exists() && gcc.isFile()) {
+            return gcc;
+        }
+        throw new RuntimeException("Cannot find C compiler executable, tried paths:" +
+                " [" + cc.getAbsolutePath() +"] and: [" + gcc + "]");
     }
 
     /**
@@ -223,122 +763,25 @@ public class InflaterAllocTest {
     }
 
     /**
-     * SAX handler that count a number of 'updatewindow' leaks
+     * Runs a single worker on a thread pool
      */
-    private static class UpdatewindowLeaskCountHandler extends DefaultHandler {
-        private enum ElState {EL_START, EL_STACK, EL_FN}
-
-        private enum ChState {CH_START, CH_MALLOC, CH_UDATEWINDOW, CH_INFLATE}
-
-        private ElState elState = ElState.EL_START;
-        private ChState chState = ChState.CH_START;
-        private int leaksCount = 0;
-
-        /**
-         * Detects <fn> elements and sets the element state to FN to
-         * enable #characters method
-         *
-         * @param uri The Namespace URI, or the empty string if the
-         *        element has no Namespace URI or if Namespace
-         *        processing is not being performed.
-         * @param localName The local name (without prefix), or the
-         *        empty string if Namespace processing is not being
-         *        performed.
-         * @param qName The qualified name (with prefix), or the
-         *        empty string if qualified names are not available.
-         * @param attributes The attributes attached to the element.  If
-         *        there are no attributes, it shall be an empty
-         *        Attributes object.
-         * @exception org.xml.sax.SAXException Any SAX exception, possibly
-         *            wrapping another exception.
-         * @see org.xml.sax.ContentHandler#startElement
-         */
-        @Override
-        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-            switch (elState) {
-                case EL_START:
-                    if ("stack".equals(qName)) {
-                        elState = ElState.EL_STACK;
-                    }
-                    break;
-                case EL_STACK:
-                    if ("fn".equals(qName)) {
-                        elState = ElState.EL_FN;
-                    }
-            }
-        }
+    private static class WorkerCallable implements Callable<Void> {
+        private final Backend backend;
+        private final String worker;
+        private final String mode;
+        private final File out;
 
-        /**
-         * Increments the leak counter if four consecutive <fn> entries in a <stack> element:
-         * malloc <- updatewindow <- inflate <- Java_java_util_zip_Inflater_inflateBytes
-         *
-         * @param ch The characters.
-         * @param start The start position in the character array.
-         * @param length The number of characters to use from the
-         *               character array.
-         * @exception org.xml.sax.SAXException Any SAX exception, possibly
-         *            wrapping another exception.
-         * @see org.xml.sax.ContentHandler#characters
-         */
-        @Override
-        public void characters(char[] ch, int start, int length) throws SAXException {
-            if (elState != ElState.EL_FN) {
-                return;
-            }
-            String st = new String(ch, start, length);
-            switch (chState) {
-                case CH_START:
-                    if ("malloc".equals(st)) {
-                        chState = ChState.CH_MALLOC;
-                    }
-                    break;
-                case CH_MALLOC:
-                    if ("updatewindow".equals(st)) {
-                        chState = ChState.CH_UDATEWINDOW;
-                    } else {
-                        chState = ChState.CH_START;
-                    }
-                    break;
-                case CH_UDATEWINDOW:
-                    chState = "inflate".equals(st) ? ChState.CH_INFLATE : ChState.CH_START;
-                    break;
-                case CH_INFLATE:
-                    leaksCount += "Java_java_util_zip_Inflater_inflateBytes".equals(st) ? 1 : 0;
-                    chState = ChState.CH_START;
-                    break;
-            }
-            elState = ElState.EL_STACK;
-        }
-
-        /**
-         * Switches the element state back to START when going out of "stack" element
-         *
-         * @param uri The Namespace URI, or the empty string if the
-         *        element has no Namespace URI or if Namespace
-         *        processing is not being performed.
-         * @param localName The local name (without prefix), or the
-         *        empty string if Namespace processing is not being
-         *        performed.
-         * @param qName The qualified name (with prefix), or the
-         *        empty string if qualified names are not available.
-         * @exception org.xml.sax.SAXException Any SAX exception, possibly
-         *            wrapping another exception.
-         * @see org.xml.sax.ContentHandler#endElement
-         */
-        @Override
-        public void endElement(String uri, String localName, String qName) throws SAXException {
-            if (elState == ElState.EL_STACK && "stack".equals(qName))
-                elState = ElState.EL_START;
+        WorkerCallable(Backend backend, String worker, String mode, File out) {
+            this.backend = backend;
+            this.worker = worker;
+            this.mode = mode;
+            this.out = out;
         }
 
-        /**
-         * Returns number of 'updatewindow' leaks detected
-         *
-         * @return number of 'updatewindow' leaks detected
-         */
-        public int getLeaksCount() {
-            return leaksCount;
+        @Override
+        public Void call() throws Exception {
+            runWorker(backend, worker, mode, out);
+            return null;
         }
     }
-
 }
@@ -18,7 +18,24 @@
  */
 
 import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Main class, should be run under the memcheck (valgrind)
@@ -36,25 +53,144 @@ public class InflaterAllocWorker {
     private static final int COMPRESSED_LEN = 39546; // 0x9a7a
     private static final int UNCOMPRESSED_LEN = 103727; // 0x01952f
     private static final int HEADER_LEN = 74; // 30 [fixed] + 16 [filename] + 28 [metadata]
+    private static final int HEADER_CRC_OFFSET = 14;
+    private static final long MAX_ENTRY_SIZE = Integer.MAX_VALUE - 8;
 
     /**
      * Inflates an entry from XSDHandler.class.zip (path to it is a first argument)
      * differently depending on specified 'mode' (second argument).
      * 'inflate' mode inflates in a single pass, 'smallbuf' mode inflates doing multiple passes,
      * 'noinflate' (or any other mode) is a no-op.
+     * 'batch' mode inflates all entries of arbitrary ZIP file specified instead of XSDHandler.class.zip.
+     * 'mmap-inflate' and 'direct-inflate' modes inflate in a single pass from memory-mapped
+     * and direct input buffers into a direct output buffer (jdk11 or later is required).
+     * 'concurrent' mode inflates in a single pass from multiple threads, optional arguments:
+     * number of threads (default 32), iterations per thread (default 100) and 'threadlocal'
+     * (default) or 'fresh' to use one Inflater per thread or a new Inflater for each iteration.
+     * 'pool' mode inflates in a single pass multiple times (optional argument, default 100)
+     * with Inflaters borrowed from InflaterPool, 'pool-warmup' mode does the same only once.
+     * 'zipfile-N', 'inflaterstream-N' and 'gzipstream-N' modes inflate through ZipFile#getInputStream,
+     * InflaterInputStream and GZIPInputStream, where N is a buffer size, optional argument
+     * is number of iterations (default 100).
+     * 'corpus' mode inflates all entries of a SyntheticCorpus directory specified instead of
+     * XSDHandler.class.zip, optional arguments: 'single' (default) or 'chunked' and a chunk size
+     * (default 8192).
+     * 'singlepass' mode inflates a mixed corpus (XSDHandler class and SyntheticCorpus entries)
+     * with SinglePassInflater using known uncompressed sizes, 'singlepass-estimate' mode does
+     * the same estimating sizes of entries without GZIP trailer.
+     * 'latency' mode records latency of each Inflater#inflate call in single-pass and chunked
+     * inflating, optional arguments: iterations per thread (default 10000), number of threads
+     * (default 1) and 'fresh' (default) or 'reused' to create a new Inflater for each iteration
+     * or to reuse one per thread.
+     * 'bgzf' mode inflates BGZF-style multi-member GZIP data (XSDHandler class repeated multiple
+     * times) in parallel with ParallelGzipInflater, optional arguments: number of threads (default 4)
+     * and number of copies of the XSDHandler class (default 32).
+     * 'vthreads-fresh', 'vthreads-pooled' and 'vthreads-striped' modes (jdk21 or later) handle
+     * many small inflate requests on virtual threads with VirtualThreadInflater compiled from
+     * 'jdk21' directory, optional arguments: number of virtual threads (default 10000),
+     * requests per thread (default 4) and slice size (default 16384).
+     * When "inflater.alloc.snapshot" system property is set, native memory snapshots are taken
+     * before and after inflating in 'inflate', 'smallbuf' and 'noinflate' modes and their
+     * differences are written to the file specified by this property, see NativeMemorySnapshot.
      * Stops the process immediately after the inflating to prevent "Inflater" finalizer from running.
      *
-     * @param args two arguments: path to XSDHandler.class.zip and a mode
+     * @param args two arguments: path to XSDHandler.class.zip and a mode,
+     *             followed by optional mode arguments
      */
     public static void main(String[] args) throws Exception {
-        if (2 != args.length) {
+        if (args.length < 2) {
             throw new RuntimeException("ERROR: invalid number of arguments specified: [" + args.length + "]," +
                     " expected first argument: 'path/to/XSDHandler.class.zip'," +
-                    " expected second argument 'inflate', 'smallbuf' or 'noinflate'");
+                    " expected second argument 'inflate', 'smallbuf', 'noinflate', 'batch'," +
+                    " 'mmap-inflate', 'direct-inflate', 'concurrent', 'pool', 'pool-warmup'," +
+                    " 'zipfile-N', 'inflaterstream-N', 'gzipstream-N', 'corpus', 'singlepass'," +
+                    " 'singlepass-estimate', 'latency', 'bgzf' or 'vthreads-*'");
         }
         System.out.println("INFO: Running in mode: [" + args[1] + "]");
+        if (args[1].startsWith("zipfile-") || args[1].startsWith("inflaterstream-") ||
+                args[1].startsWith("gzipstream-")) {
+            int dash = args[1].lastIndexOf('-');
+            String wrapper = args[1].substring(0, dash);
+            int bufferSize = Integer.parseInt(args[1].substring(dash + 1));
+            int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            inflateStream(new File(args[0]), wrapper, bufferSize, iterations);
+            System.exit(0);
+        }
+        if ("batch".equals(args[1])) {
+            inflateBatch(new File(args[0]));
+            System.exit(0);
+        }
+        if ("corpus".equals(args[1])) {
+            boolean chunked = args.length > 2 && "chunked".equals(args[2]);
+            int chunkSize = args.length > 3 ? Integer.parseInt(args[3]) : 8192;
+            inflateCorpus(new File(args[0]), chunked, chunkSize);
+            System.exit(0);
+        }
+        if ("singlepass".equals(args[1]) || "singlepass-estimate".equals(args[1])) {
+            inflateSinglePassCorpus(new File(args[0]), new File("corpus." + args[1]), "singlepass".equals(args[1]));
+            System.exit(0);
+        }
+        if ("latency".equals(args[1])) {
+            int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+            int threadsCount = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+            String inflater = args.length > 4 ? args[4] : "fresh";
+            if (!"fresh".equals(inflater) && !"reused".equals(inflater)) {
+                throw new RuntimeException("ERROR: unknown latency inflater: [" + inflater + "]," +
+                        " 'fresh' or 'reused' must be specified");
+            }
+            boolean fresh = "fresh".equals(inflater);
+            byte[] comp = readCompressed(new File(args[0]));
+            for (String mode : new String[]{"inflate", "smallbuf"}) {
+                inflateLatency(comp, mode, iterations, threadsCount, fresh);
+            }
+            System.exit(0);
+        }
+        if ("mmap-inflate".equals(args[1]) || "direct-inflate".equals(args[1])) {
+            ByteBuffer comp = "mmap-inflate".equals(args[1]) ?
+                    mapCompressed(new File(args[0])) :
+                    copyToDirect(readCompressed(new File(args[0])));
+            Inflater inf = new Inflater(true);
+            inflateBuffer(inf, comp);
+            System.exit(0);
+        }
+        if ("concurrent".equals(args[1])) {
+            int threadsCount = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+            String inflater = args.length > 4 ? args[4] : "threadlocal";
+            if (!"threadlocal".equals(inflater) && !"fresh".equals(inflater)) {
+                throw new RuntimeException("ERROR: unknown concurrent inflater: [" + inflater + "]," +
+                        " 'threadlocal' or 'fresh' must be specified");
+            }
+            boolean threadLocal = "threadlocal".equals(inflater);
+            inflateConcurrent(readCompressed(new File(args[0])), threadsCount, iterations, threadLocal);
+            System.exit(0);
+        }
+        if ("pool".equals(args[1]) || "pool-warmup".equals(args[1])) {
+            int iterations = "pool-warmup".equals(args[1]) ? 1 : args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            inflatePooled(readCompressed(new File(args[0])), iterations);
+            System.exit(0);
+        }
+        if (args[1].startsWith("vthreads-")) {
+            runVirtualThreads(new File(args[0]), args[1].substring("vthreads-".length()),
+                    Arrays.copyOfRange(args, 2, args.length));
+            System.exit(0);
+        }
+        if ("bgzf".equals(args[1])) {
+            int threadsCount = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+            int copies = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+            inflateParallelGzip(new File(args[0]), threadsCount, copies);
+            System.exit(0);
+        }
         byte[] comp = readCompressed(new File(args[0]));
         Inflater inf = new Inflater(true);
+        String snapshotPath = System.getProperty("inflater.alloc.snapshot");
+        if (null != snapshotPath) {
+            PreloadCounters counters = PreloadCounters.open();
+            NativeMemorySnapshot before = NativeMemorySnapshot.take(counters);
+            inflateInternal(inf, comp, args[1]);
+            writeSnapshotDelta(NativeMemorySnapshot.take(counters).delta(before), new File(snapshotPath), args[1]);
+            System.exit(0);
+        }
         inflateInternal(inf, comp, args[1]);
         // trying to end process abruptly to prevent running finalizer that will call "inflateEnd"
         System.exit(0);
@@ -92,6 +228,686 @@ public class InflaterAllocWorker {
         System.out.println("INFO: inflate exited successfully");
     }
 
+    /**
+     * Writes native memory snapshots differences into a specified file
+     *
+     * @param delta snapshots differences
+     * @param file output file
+     * @param mode worker mode
+     */
+    private static void writeSnapshotDelta(Properties delta, File file, String mode) throws IOException {
+        System.out.println("INFO: native memory delta: " + delta);
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(file);
+            delta.store(os, "Native memory delta of '" + mode + "' mode");
+        } finally {
+            closeQuietly(os);
+        }
+    }
+
+    /**
+     * Inflates specified compressed data in a single pass from multiple threads
+     * started at once, each thread uses its own Inflater held in a ThreadLocal
+     * or creates and ends a new Inflater for each iteration. Reports 'updatewindow'
+     * allocations (when run with the malloc interposer library), RSS growth and
+     * aggregate throughput.
+     *
+     * @param comp compressed data
+     * @param threadsCount number of threads
+     * @param iterations number of inflate operations per thread
+     * @param threadLocal whether to reuse per-thread Inflater
+     */
+    private static void inflateConcurrent(final byte[] comp, int threadsCount, final int iterations,
+                                          final boolean threadLocal) throws Exception {
+        PreloadCounters counters = PreloadCounters.open();
+        final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+            @Override
+            protected Inflater initialValue() {
+                return new Inflater(true);
+            }
+        };
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final AtomicLong uncompTotal = new AtomicLong();
+        Thread[] threads = new Thread[threadsCount];
+        for (int i = 0; i < threadsCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        byte[] uncomp = new byte[UNCOMPRESSED_LEN];
+                        startLatch.await();
+                        for (int j = 0; j < iterations; j++) {
+                            Inflater inf = threadLocal ? inflaters.get() : new Inflater(true);
+                            inf.reset();
+                            uncompTotal.addAndGet(inflateSinglePass(inf, comp, uncomp));
+                            if (!threadLocal) {
+                                inf.end();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            }, "inflater-" + i);
+            threads[i].start();
+        }
+        long rssBefore = readProcStatusKb("VmRSS");
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread th : threads) {
+            th.join();
+        }
+        long nanos = System.nanoTime() - start;
+        if (null != error.get()) {
+            throw new RuntimeException("ERROR: concurrent inflate failed", error.get());
+        }
+        long rssAfter = readProcStatusKb("VmRSS");
+        double mb = uncompTotal.get() / (1024d * 1024d);
+        System.out.println("INFO: concurrent inflate exited successfully, threads: [" + threadsCount + "]," +
+                " iterations: [" + iterations + "], inflater: [" + (threadLocal ? "threadlocal" : "fresh") + "]," +
+                " throughput: [" + String.format("%.1f", mb * 1e9 / nanos) + "] MB/s," +
+                " RSS growth: [" + (rssAfter - rssBefore) + "] kB");
+        if (null != counters) {
+            System.out.println("INFO: updatewindow allocations: [" + (counters.mallocs() - mallocsBefore) + "]");
+        }
+    }
+
+    /**
+     * Inflates specified compressed data multiple times from the specified number of threads
+     * recording latency of each Inflater#inflate call into a shared LatencyHistogram.
+     * 'inflate' mode inflates in a single pass, 'smallbuf' mode inflates in 8192 bytes chunks.
+     * First tenth of iterations is a warm-up and is not recorded. Reports number of calls,
+     * p50, p99, p99.9 and max latencies and (when run with the malloc interposer library)
+     * 'updatewindow' allocations per iteration. Interposer makes allocating calls slower,
+     * it should not be used to get clean latencies.
+     *
+     * @param comp compressed data
+     * @param mode 'inflate' or 'smallbuf'
+     * @param iterations number of recorded inflate operations per thread
+     * @param threadsCount number of threads
+     * @param fresh whether to create a new Inflater for each iteration
+     */
+    private static void inflateLatency(final byte[] comp, String mode, final int iterations, int threadsCount,
+                                       final boolean fresh) throws Exception {
+        PreloadCounters counters = PreloadCounters.open();
+        final int bufferSize = "inflate".equals(mode) ? UNCOMPRESSED_LEN : 8192;
+        final int warmup = iterations / 10;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final CountDownLatch warmupLatch = new CountDownLatch(threadsCount);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[threadsCount];
+        for (int i = 0; i < threadsCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        byte[] uncomp = new byte[bufferSize];
+                        Inflater reused = fresh ? null : new Inflater(true);
+                        for (int j = 0; j < warmup + iterations; j++) {
+                            if (warmup == j) {
+                                warmupLatch.countDown();
+                                startLatch.await();
+                            }
+                            Inflater inf = fresh ? new Inflater(true) : reused;
+                            inf.reset();
+                            inf.setInput(comp);
+                            int uncompCount = 0;
+                            while (uncompCount < UNCOMPRESSED_LEN) {
+                                int off = uncomp.length == UNCOMPRESSED_LEN ? uncompCount : 0;
+                                int len = Math.min(uncomp.length - off, UNCOMPRESSED_LEN - uncompCount);
+                                long start = System.nanoTime();
+                                int infRes = inf.inflate(uncomp, off, len);
+                                long nanos = System.nanoTime() - start;
+                                if (j >= warmup) {
+                                    histogram.record(nanos);
+                                }
+                                if (0 == infRes) break;
+                                uncompCount += infRes;
+                            }
+                            if (fresh) {
+                                inf.end();
+                            }
+                            if (UNCOMPRESSED_LEN != uncompCount) {
+                                throw new RuntimeException("ERROR: inflate operation failed," +
+                                        " expected decompressed bytes: [" + UNCOMPRESSED_LEN + "]," +
+                                        " actual decompressed bytes: [" + uncompCount + "]");
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                        warmupLatch.countDown();
+                    }
+                }
+            }, "inflater-" + i);
+            threads[i].start();
+        }
+        warmupLatch.await();
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        startLatch.countDown();
+        for (Thread th : threads) {
+            th.join();
+        }
+        if (null != error.get()) {
+            throw new RuntimeException("ERROR: latency inflate failed", error.get());
+        }
+        System.out.println("INFO: latency mode: [" + mode + "], threads: [" + threadsCount + "]," +
+                " iterations: [" + iterations + "], inflater: [" + (fresh ? "fresh" : "reused") + "]," +
+                " calls: [" + histogram.getTotalCount() + "]," +
+                " p50: [" + histogram.getValueAtPercentile(50) + "] ns," +
+                " p99: [" + histogram.getValueAtPercentile(99) + "] ns," +
+                " p99.9: [" + histogram.getValueAtPercentile(99.9) + "] ns," +
+                " max: [" + histogram.getMax() + "] ns");
+        if (null != counters) {
+            long mallocs = counters.mallocs() - mallocsBefore;
+            System.out.println("INFO: updatewindow allocations: [" + mallocs + "]," +
+                    " per iteration: [" + String.format("%.2f", mallocs / (double) (iterations * threadsCount)) + "]");
+        }
+    }
+
+    /**
+     * Inflates specified compressed data in a single pass multiple times
+     * borrowing Inflater from the pool for each iteration. Pool is not closed
+     * to keep pooled Inflater's native memory in memcheck's report.
+     * When run with the malloc interposer library, reports 'updatewindow'
+     * allocations done after the first (warm-up) iteration.
+     *
+     * @param comp compressed data
+     * @param iterations number of inflate operations
+     */
+    private static void inflatePooled(byte[] comp, int iterations) throws Exception {
+        PreloadCounters counters = PreloadCounters.open();
+        InflaterPool pool = new InflaterPool(true, 4, true);
+        byte[] uncomp = new byte[UNCOMPRESSED_LEN];
+        long mallocsAfterWarmup = 0;
+        for (int i = 0; i < iterations; i++) {
+            Inflater inf = pool.borrow();
+            try {
+                inflateSinglePass(inf, comp, uncomp);
+            } finally {
+                pool.release(inf);
+            }
+            if (0 == i && null != counters) {
+                mallocsAfterWarmup = counters.mallocs();
+            }
+        }
+        System.out.println("INFO: pooled inflate exited successfully, iterations: [" + iterations + "]," +
+                " created: [" + pool.getCreatedCount() + "], reused: [" + pool.getReusedCount() + "]");
+        if (null != counters) {
+            System.out.println("INFO: updatewindow allocations after warm-up: [" +
+                    (counters.mallocs() - mallocsAfterWarmup) + "]");
+        }
+    }
+
+    /**
+     * Inflates BGZF-style GZIP data in parallel with ParallelGzipInflater. Data is created
+     * in memory deflating the XSDHandler class repeated the specified number of times.
+     * Pooled Inflaters are not ended to keep their native memory in memcheck's report.
+     * Reports throughput, pool statistics and (when run with the malloc interposer library)
+     * 'updatewindow' allocations.
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @param threadsCount parallelism of the fork-join pool
+     * @param copies number of copies of the XSDHandler class in the uncompressed data
+     */
+    private static void inflateParallelGzip(File zipFile, int threadsCount, int copies) throws Exception {
+        byte[] xsd = DeflaterAllocWorker.readUncompressed(zipFile);
+        byte[] data = new byte[xsd.length * copies];
+        for (int i = 0; i < copies; i++) {
+            System.arraycopy(xsd, 0, data, i * xsd.length, xsd.length);
+        }
+        byte[] gzip = ParallelGzipInflater.compress(data, Deflater.DEFAULT_COMPRESSION);
+        int membersCount = ParallelGzipInflater.scan(gzip, 0, gzip.length).size();
+        PreloadCounters counters = PreloadCounters.open();
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        ForkJoinPool fjp = new ForkJoinPool(threadsCount);
+        InflaterPool pool = new InflaterPool(true, threadsCount * 2, true);
+        ParallelGzipInflater pgi = new ParallelGzipInflater(fjp, pool, 1);
+        long start = System.nanoTime();
+        byte[] uncomp = pgi.inflate(gzip, 0, gzip.length);
+        long nanos = System.nanoTime() - start;
+        if (!Arrays.equals(data, uncomp)) {
+            throw new RuntimeException("ERROR: parallel inflate operation failed," +
+                    " expected decompressed bytes: [" + data.length + "]," +
+                    " actual decompressed bytes: [" + uncomp.length + "]");
+        }
+        String mbPerS = String.format("%.1f", data.length * 1e9 / nanos / (1 << 20));
+        System.out.println("INFO: parallel inflate exited successfully, members: [" + membersCount + "]," +
+                " threads: [" + threadsCount + "], MB/s: [" + mbPerS + "]," +
+                " created: [" + pool.getCreatedCount() + "], reused: [" + pool.getReusedCount() + "]");
+        if (null != counters) {
+            System.out.println("INFO: updatewindow allocations: [" + (counters.mallocs() - mallocsBefore) + "]");
+        }
+    }
+
+    /**
+     * Runs VirtualThreadInflater from 'jdk21' directory, the class is bound with a method handle
+     * so this worker can be compiled and run on older jdks
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @param mode 'fresh', 'pooled' or 'striped'
+     * @param args optional VirtualThreadInflater arguments
+     */
+    private static void runVirtualThreads(File zipFile, String mode, String[] args) throws Exception {
+        MethodHandle run;
+        try {
+            run = MethodHandles.publicLookup().findStatic(Class.forName("VirtualThreadInflater"), "run",
+                    MethodType.methodType(void.class, File.class, String.class, String[].class));
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("ERROR: VirtualThreadInflater class not found, 'vthreads-*' modes" +
+                    " require jdk21 and classes compiled from 'jdk21' directory", e);
+        }
+        try {
+            run.invokeExact(zipFile, mode, args);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Inflates XSDHandler class through one of the JDK stream wrappers multiple times.
+     * For 'inflaterstream' and 'gzipstream' wrappers buffer size is the size of the wrapper's
+     * internal input buffer and the whole uncompressed data is requested in each read call,
+     * for 'zipfile' wrapper (that chooses its internal buffer size itself) buffer size
+     * is the size of the read buffer. GZIP data is created in memory from the ZIP entry
+     * adding GZIP header and trailer. All streams except the last one are closed, so
+     * (with memcheck) only the last stream's 'updatewindow' allocation is reported.
+     * Reports throughput and (when run with the malloc interposer library)
+     * 'updatewindow' allocations per iteration.
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @param wrapper 'zipfile', 'inflaterstream' or 'gzipstream'
+     * @param bufferSize buffer size
+     * @param iterations number of inflate operations
+     */
+    private static void inflateStream(File zipFile, String wrapper, int bufferSize, int iterations) throws Exception {
+        PreloadCounters counters = PreloadCounters.open();
+        byte[] comp = "gzipstream".equals(wrapper) ? wrapGzip(zipFile) :
+                "inflaterstream".equals(wrapper) ? readCompressed(zipFile) : null;
+        ZipFile zip = "zipfile".equals(wrapper) ? new ZipFile(zipFile) : null;
+        if (null == comp && null == zip) {
+            throw new RuntimeException("ERROR: unknown stream wrapper: [" + wrapper + "]");
+        }
+        byte[] uncomp = new byte[UNCOMPRESSED_LEN];
+        byte[] buf = null != zip ? new byte[bufferSize] : uncomp;
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            InputStream is;
+            Inflater inf = null;
+            if (null != zip) {
+                ZipEntry en = zip.entries().nextElement();
+                is = zip.getInputStream(en);
+            } else if ("gzipstream".equals(wrapper)) {
+                is = new GZIPInputStream(new ByteArrayInputStream(comp), bufferSize);
+            } else {
+                inf = new Inflater(true);
+                is = new InflaterInputStream(new ByteArrayInputStream(comp), inf, bufferSize);
+            }
+            int uncompCount = 0;
+            for (;;) {
+                int off = buf == uncomp ? uncompCount : 0;
+                int len = buf == uncomp ? UNCOMPRESSED_LEN - uncompCount : buf.length;
+                int readRes = 0 != len ? is.read(buf, off, len) : -1;
+                if (-1 == readRes) break;
+                uncompCount += readRes;
+            }
+            if (UNCOMPRESSED_LEN != uncompCount) {
+                throw new RuntimeException("ERROR: inflate operation failed, wrapper: [" + wrapper + "]," +
+                        " expected decompressed bytes: [" + UNCOMPRESSED_LEN + "]," +
+                        " actual decompressed bytes: [" + uncompCount + "]");
+            }
+            // last stream is left open to keep its Inflater's native memory in memcheck's report
+            if (i < iterations - 1) {
+                is.close();
+                // InflaterInputStream does not end Inflater supplied by the caller
+                if (null != inf) {
+                    inf.end();
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        double mb = (double) UNCOMPRESSED_LEN * iterations / (1024d * 1024d);
+        System.out.println("INFO: stream inflate exited successfully, wrapper: [" + wrapper + "]," +
+                " buffer: [" + bufferSize + "], iterations: [" + iterations + "]," +
+                " throughput: [" + String.format("%.1f", mb * 1e9 / nanos) + "] MB/s");
+        if (null != counters) {
+            long mallocs = counters.mallocs() - mallocsBefore;
+            System.out.println("INFO: updatewindow allocations: [" + mallocs + "]," +
+                    " per iteration: [" + String.format("%.2f", mallocs / (double) iterations) + "]");
+        }
+    }
+
+    /**
+     * Inflates specified compressed data in a single pass
+     *
+     * @param inf inflater, input is set by this method
+     * @param comp compressed data
+     * @param uncomp output buffer that fits the whole uncompressed data
+     * @return number of uncompressed bytes
+     */
+    private static int inflateSinglePass(Inflater inf, byte[] comp, byte[] uncomp) throws Exception {
+        inf.setInput(comp);
+        int uncompCount = 0;
+        while (uncompCount < UNCOMPRESSED_LEN) {
+            int infRes = inf.inflate(uncomp, uncompCount, UNCOMPRESSED_LEN - uncompCount);
+            if (0 == infRes) break;
+            uncompCount += infRes;
+        }
+        if (UNCOMPRESSED_LEN != uncompCount) {
+            throw new RuntimeException("ERROR: inflate operation failed," +
+                    " expected decompressed bytes: [" + UNCOMPRESSED_LEN + "]," +
+                    " actual decompressed bytes: [" + uncompCount + "]");
+        }
+        return uncompCount;
+    }
+
+    /**
+     * Reads a value in kB from /proc/self/status
+     *
+     * @param key value key, e.g. "VmRSS"
+     * @return value in kB, -1 if not available
+     */
+    private static long readProcStatusKb(String key) {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader("/proc/self/status"));
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith(key + ":")) {
+                    String value = line.substring(key.length() + 1).trim();
+                    return Long.parseLong(value.substring(0, value.indexOf(' ')));
+                }
+            }
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Inflates specified compressed data in a single pass into a direct
+     * output buffer, using Inflater's ByteBuffer methods
+     *
+     * @param inf inflater
+     * @param comp direct buffer with compressed data
+     */
+    private static void inflateBuffer(Inflater inf, ByteBuffer comp) throws Exception {
+        ByteBuffer uncomp = ByteBuffer.allocateDirect(UNCOMPRESSED_LEN);
+        InflaterBuffers.setInput(inf, comp);
+        while (uncomp.hasRemaining()) {
+            int infRes = InflaterBuffers.inflate(inf, uncomp);
+            if (0 == infRes) break;
+        }
+        if (UNCOMPRESSED_LEN != uncomp.position()) {
+            throw new RuntimeException("ERROR: inflate operation failed," +
+                    " expected decompressed bytes: [" + UNCOMPRESSED_LEN + "]," +
+                    " actual decompressed bytes: [" + uncomp.position() + "]");
+        }
+        System.out.println("INFO: inflate exited successfully");
+    }
+
+    /**
+     * Inflates all DEFLATE entries of a specified ZIP file with a single Inflater
+     * reset between entries. Entries are located using the ZIP central directory,
+     * compressed data is read into a pooled input buffer and inflated in a single pass
+     * into a pooled output buffer big enough for the entry's uncompressed size.
+     * When run with the malloc interposer library, reports 'updatewindow'
+     * allocations for each entry.
+     *
+     * @param zipFile ZIP or JAR file
+     */
+    private static void inflateBatch(File zipFile) throws Exception {
+        List<ZipCentralDirectory.Entry> entries = ZipCentralDirectory.read(zipFile);
+        PreloadCounters counters = PreloadCounters.open();
+        Inflater inf = new Inflater(true);
+        byte[] comp = new byte[0];
+        byte[] uncomp = new byte[0];
+        int inflatedCount = 0;
+        int allocatingCount = 0;
+        long uncompTotal = 0;
+        long mallocsTotal = 0;
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(zipFile, "r");
+            for (ZipCentralDirectory.Entry en : entries) {
+                if (ZipCentralDirectory.METHOD_DEFLATED != en.getMethod()) {
+                    continue;
+                }
+                // ZIP64 sizes (0xffffffff in central directory) and entries over 2 GB are not supported
+                if (en.getCompressedSize() > MAX_ENTRY_SIZE || en.getUncompressedSize() > MAX_ENTRY_SIZE) {
+                    throw new RuntimeException("ERROR: unsupported entry size, entry: [" + en.getName() + "]," +
+                            " compressed: [" + en.getCompressedSize() + "]," +
+                            " uncompressed: [" + en.getUncompressedSize() + "]");
+                }
+                int compLen = (int) en.getCompressedSize();
+                int uncompLen = (int) en.getUncompressedSize();
+                comp = ensureCapacity(comp, compLen);
+                uncomp = ensureCapacity(uncomp, uncompLen);
+                raf.seek(en.getDataOffset());
+                raf.readFully(comp, 0, compLen);
+                long mallocsBefore = null != counters ? counters.mallocs() : 0;
+                inf.reset();
+                inf.setInput(comp, 0, compLen);
+                int uncompCount = 0;
+                while (uncompCount < uncompLen) {
+                    int infRes = inf.inflate(uncomp, uncompCount, uncompLen - uncompCount);
+                    if (0 == infRes) break;
+                    uncompCount += infRes;
+                }
+                if (uncompLen != uncompCount) {
+                    throw new RuntimeException("ERROR: inflate operation failed, entry: [" + en.getName() + "]," +
+                            " expected decompressed bytes: [" + uncompLen + "]," +
+                            " actual decompressed bytes: [" + uncompCount + "]");
+                }
+                inflatedCount += 1;
+                uncompTotal += uncompCount;
+                if (null != counters) {
+                    long mallocs = counters.mallocs() - mallocsBefore;
+                    mallocsTotal += mallocs;
+                    allocatingCount += mallocs > 0 ? 1 : 0;
+                    System.out.println("INFO: entry: [" + en.getName() + "]," +
+                            " compressed: [" + compLen + "], uncompressed: [" + uncompLen + "]," +
+                            " updatewindow allocations: [" + mallocs + "]");
+                }
+            }
+        } finally {
+            closeQuietly(raf);
+        }
+        System.out.println("INFO: batch inflate exited successfully, entries: [" + entries.size() + "]," +
+                " inflated: [" + inflatedCount + "], uncompressed bytes: [" + uncompTotal + "]");
+        if (null != counters) {
+            System.out.println("INFO: updatewindow allocations: [" + mallocsTotal + "]," +
+                    " entries with allocations: [" + allocatingCount + "]");
+        }
+    }
+
+    /**
+     * Inflates all entries of a synthetic corpus (see SyntheticCorpus) with a new Inflater
+     * for each entry, expected lengths are taken from the corpus metadata.
+     * In single-pass mode output buffer fits the whole uncompressed data, in chunked
+     * mode output is inflated into a buffer of the specified size.
+     * For each entry reports inflate time and throughput, peak RSS (reset before
+     * each entry, if supported by the kernel) and (when run with the malloc interposer
+     * library) 'updatewindow' allocations.
+     *
+     * @param dir corpus directory
+     * @param chunked whether to inflate in chunks
+     * @param chunkSize output chunk size for chunked mode
+     */
+    private static void inflateCorpus(File dir, boolean chunked, int chunkSize) throws Exception {
+        List<SyntheticCorpus.Entry> entries = SyntheticCorpus.read(dir);
+        PreloadCounters counters = PreloadCounters.open();
+        byte[] comp = new byte[0];
+        byte[] uncomp = chunked ? new byte[chunkSize] : new byte[0];
+        System.out.println("INFO: kind,uncompressed_len,compressed_len,level,wrap,mode,time_us,mb_per_s," +
+                "updatewindow_allocations,updatewindow_bytes,peak_rss_kb");
+        for (SyntheticCorpus.Entry en : entries) {
+            long uncompLen = en.getUncompressedLength();
+            int compLen = (int) en.getDataLength();
+            comp = ensureCapacity(comp, compLen);
+            if (!chunked) {
+                uncomp = ensureCapacity(uncomp, (int) uncompLen);
+            }
+            RandomAccessFile raf = null;
+            try {
+                raf = new RandomAccessFile(en.getFile(), "r");
+                raf.seek(en.getDataOffset());
+                raf.readFully(comp, 0, compLen);
+            } finally {
+                closeQuietly(raf);
+            }
+            resetPeakRss();
+            long mallocsBefore = null != counters ? counters.mallocs() : 0;
+            long bytesBefore = null != counters ? counters.bytes() : 0;
+            Inflater inf = new Inflater(en.isNowrap());
+            long start = System.nanoTime();
+            inf.setInput(comp, 0, compLen);
+            long uncompCount = 0;
+            while (!inf.finished()) {
+                int off = chunked ? 0 : (int) uncompCount;
+                int len = chunked ? uncomp.length : (int) (uncompLen - uncompCount);
+                int infRes = inf.inflate(uncomp, off, len);
+                if (0 == infRes && (inf.needsInput() || inf.needsDictionary() || 0 == len)) break;
+                uncompCount += infRes;
+            }
+            long nanos = System.nanoTime() - start;
+            inf.end();
+            if (uncompLen != uncompCount || !inf.finished()) {
+                throw new RuntimeException("ERROR: inflate operation failed, entry: [" + en.getFile().getName() + "]," +
+                        " expected decompressed bytes: [" + uncompLen + "]," +
+                        " actual decompressed bytes: [" + uncompCount + "]");
+            }
+            System.out.println("INFO: " + en.getKind() + "," + uncompLen + "," + en.getCompressedLength() + "," +
+                    en.getLevel() + "," + en.getWrap() + "," + (chunked ? "chunked" : "single") + "," +
+                    (nanos / 1000) + "," + String.format("%.1f", uncompLen * 1e9 / (nanos * 1024d * 1024d)) + "," +
+                    (null != counters ? counters.mallocs() - mallocsBefore : -1) + "," +
+                    (null != counters ? counters.bytes() - bytesBefore : -1) + "," +
+                    readProcStatusKb("VmHWM"));
+        }
+        System.out.println("INFO: corpus inflate exited successfully, entries: [" + entries.size() + "]");
+    }
+
+    /**
+     * Inflates XSDHandler class from a specified ZIP file and all entries of a small synthetic corpus
+     * (256 bytes to 256 KB, generated into a specified directory) with SinglePassInflater.
+     * XSDHandler size is taken from the ZIP central directory, GZIP entries sizes are taken from ISIZE,
+     * 'raw' and 'zlib' entries sizes are taken from the corpus metadata or estimated.
+     * With known sizes one Inflater is used for each 'nowrap' value, Inflaters are reset between
+     * entries and are not ended to keep their native memory in memcheck's report. With estimated
+     * sizes a new Inflater is used for each entry and ended after it, as a reset Inflater keeps
+     * its window and only its first 'updatewindow' allocation would be counted.
+     * Reports single-pass hits, fallbacks and (when run with the malloc interposer library)
+     * 'updatewindow' allocations.
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @param corpusDir directory to generate the corpus into
+     * @param knownSizes whether to use sizes from the corpus metadata for 'raw' and 'zlib' entries
+     */
+    private static void inflateSinglePassCorpus(File zipFile, File corpusDir, boolean knownSizes) throws Exception {
+        List<SyntheticCorpus.Entry> entries = SyntheticCorpus.generate(corpusDir, 256, 256 << 10, 4);
+        PreloadCounters counters = PreloadCounters.open();
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        SinglePassInflater spi = new SinglePassInflater(4);
+        Inflater rawInf = new Inflater(true);
+        Inflater zlibInf = new Inflater(false);
+
+        ZipCentralDirectory.Entry xsd = ZipCentralDirectory.read(zipFile).get(0);
+        byte[] comp = readCompressed(zipFile);
+        SinglePassInflater.Output xsdOut = spi.inflate(rawInf, comp, 0, comp.length, xsd.getUncompressedSize());
+        checkLength(zipFile.getName(), xsd.getUncompressedSize(), xsdOut.getLength());
+        spi.release(xsdOut);
+
+        for (SyntheticCorpus.Entry en : entries) {
+            byte[] data = readFile(en.getFile());
+            long size = en.getUncompressedLength();
+            if (SyntheticCorpus.WRAP_GZIP.equals(en.getWrap())) {
+                size = SinglePassInflater.gzipSize(data, 0, data.length);
+            } else if (!knownSizes) {
+                size = SinglePassInflater.UNKNOWN_SIZE;
+            }
+            Inflater inf = !knownSizes ? new Inflater(en.isNowrap()) : en.isNowrap() ? rawInf : zlibInf;
+            inf.reset();
+            try {
+                SinglePassInflater.Output out = spi.inflate(inf, data, en.getDataOffset(), (int) en.getDataLength(), size);
+                checkLength(en.getFile().getName(), en.getUncompressedLength(), out.getLength());
+                spi.release(out);
+            } finally {
+                if (!knownSizes) {
+                    inf.end();
+                }
+            }
+        }
+        System.out.println("INFO: single pass inflate exited successfully, entries: [" + (entries.size() + 1) + "]," +
+                " hits: [" + spi.getHitCount() + "], fallbacks: [" + spi.getFallbackCount() + "]," +
+                " estimated: [" + spi.getEstimatedCount() + "]");
+        if (null != counters) {
+            System.out.println("INFO: updatewindow allocations: [" + (counters.mallocs() - mallocsBefore) + "]");
+        }
+    }
+
+    private static void checkLength(String name, long expected, long actual) {
+        if (expected != actual) {
+            throw new RuntimeException("ERROR: inflate operation failed, entry: [" + name + "]," +
+                    " expected decompressed bytes: [" + expected + "]," +
+                    " actual decompressed bytes: [" + actual + "]");
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            byte[] data = new byte[(int) raf.length()];
+            raf.readFully(data);
+            return data;
+        } finally {
+            closeQuietly(raf);
+        }
+    }
+
+    /**
+     * Resets peak RSS (VmHWM) of the process, no-op if not supported by the kernel
+     */
+    private static void resetPeakRss() {
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream("/proc/self/clear_refs");
+            os.write('5');
+        } catch (IOException e) {
+            // not supported
+        } finally {
+            if (null != os) {
+                try {
+                    os.close();
+                } catch (IOException e) {
+                    // not supported
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns specified buffer if it has enough capacity, new bigger buffer otherwise
+     *
+     * @param buf pooled buffer
+     * @param len required length
+     * @return buffer with length not less than required
+     */
+    private static byte[] ensureCapacity(byte[] buf, int len) {
+        if (buf.length >= len) {
+            return buf;
+        }
+        return new byte[Math.max(len, buf.length * 2)];
+    }
+
     /**
      * Reads deflated ZIP entry from the XSDHandler.class.zip file skipping ZIP
      * metadata
@@ -124,6 +940,67 @@ public class InflaterAllocWorker {
         }
     }
 
+    /**
+     * Creates GZIP data from the deflated ZIP entry of the XSDHandler.class.zip file,
+     * CRC-32 is taken from the ZIP local header
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @return GZIP member containing XSDHandler class
+     */
+    private static byte[] wrapGzip(File zipFile) throws IOException {
+        byte[] crc = new byte[4];
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(zipFile, "r");
+            raf.seek(HEADER_CRC_OFFSET);
+            raf.readFully(crc);
+        } finally {
+            closeQuietly(raf);
+        }
+        byte[] comp = readCompressed(zipFile);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(comp.length + 18);
+        // magic, CM = deflate, no flags, no mtime, no XFL, OS = unix
+        baos.write(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 3});
+        baos.write(comp);
+        // CRC-32 and ISIZE, both are little-endian like in ZIP header
+        baos.write(crc);
+        for (int i = 0; i < 4; i++) {
+            baos.write(UNCOMPRESSED_LEN >>> (i * 8));
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Maps deflated ZIP entry from the XSDHandler.class.zip file into memory
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @return memory-mapped buffer containing deflated ZIP entry
+     */
+    private static ByteBuffer mapCompressed(File zipFile) throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(zipFile, "r");
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER_LEN, COMPRESSED_LEN);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("ERROR: Input ZIP file not found: [" + zipFile.getAbsolutePath() + "]", e);
+        } finally {
+            closeQuietly(raf);
+        }
+    }
+
+    /**
+     * Copies specified data into a new direct buffer
+     *
+     * @param data data to copy
+     * @return direct buffer ready for reading
+     */
+    private static ByteBuffer copyToDirect(byte[] data) {
+        ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+        buf.put(data);
+        buf.flip();
+        return buf;
+    }
+
     /**
      * Closed the closeable printing stacktrace on exception,
      * no-op on null input
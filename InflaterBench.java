@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.Inflater;
+
+/**
+ * Benchmark for single-pass and chunked Inflater strategies, not run by jtreg.
+ *
+ * Inflates the first entry of a ZIP file using 'inflate' strategy (single pass
+ * into a buffer that fits the whole uncompressed data) and 'smallbuf' strategy
+ * (multiple passes into a buffer of the specified size) with output buffer sizes
+ * from 1 KB up to 64 KB. Each combination is run with a fresh
+ * Inflater for every operation and with a single reused Inflater.
+ *
+ * For each run reports ops/s, heap bytes allocated per operation (same as
+ * "gc.alloc.rate.norm" of JMH's "-prof gc") and, when run with the
+ * InflaterAllocPreload.c interposer library, native 'updatewindow'
+ * allocations per operation.
+ *
+ * Usage: java InflaterBench [path/to/XSDHandler.class.zip] [warmup_ms] [measure_ms]
+ */
+public class InflaterBench {
+    private static final int[] BUFFER_SIZES = {1 << 10, 4 << 10, 16 << 10, 64 << 10};
+
+    private final byte[] comp;
+    private final int uncompLen;
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final PreloadCounters counters;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private InflaterBench(byte[] comp, int uncompLen, long warmupMillis, long measureMillis,
+                          PreloadCounters counters) {
+        this.comp = comp;
+        this.uncompLen = uncompLen;
+        this.warmupNanos = warmupMillis * 1000000L;
+        this.measureNanos = measureMillis * 1000000L;
+        this.counters = counters;
+    }
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args optional ZIP file path (default XSDHandler.class.zip), warmup
+     *             and measurement time per run in milliseconds (default 1000 and 3000)
+     */
+    public static void main(String[] args) throws Exception {
+        File zipFile = new File(args.length > 0 ? args[0] : "XSDHandler.class.zip");
+        long warmupMillis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        long measureMillis = args.length > 2 ? Long.parseLong(args[2]) : 3000;
+        ZipCentralDirectory.Entry en = ZipCentralDirectory.read(zipFile).get(0);
+        byte[] comp = new byte[(int) en.getCompressedSize()];
+        RandomAccessFile raf = new RandomAccessFile(zipFile, "r");
+        try {
+            raf.seek(en.getDataOffset());
+            raf.readFully(comp);
+        } finally {
+            raf.close();
+        }
+        int uncompLen = (int) en.getUncompressedSize();
+        InflaterBench bench = new InflaterBench(comp, uncompLen, warmupMillis, measureMillis,
+                PreloadCounters.open());
+        for (boolean reuse : new boolean[]{false, true}) {
+            bench.run("inflate", uncompLen, reuse);
+            for (int size : BUFFER_SIZES) {
+                if (size < uncompLen) {
+                    bench.run("smallbuf", size, reuse);
+                }
+            }
+        }
+    }
+
+    private void run(String strategy, int bufferSize, boolean reuse) throws Exception {
+        Inflater reused = reuse ? new Inflater(true) : null;
+        byte[] uncomp = new byte[bufferSize];
+        long deadline = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < deadline) {
+            inflateOnce(reused, uncomp);
+        }
+        long ops = 0;
+        long heapBefore = allocatedBytes();
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        long start = System.nanoTime();
+        deadline = start + measureNanos;
+        long now;
+        do {
+            inflateOnce(reused, uncomp);
+            ops += 1;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long heap = allocatedBytes() - heapBefore;
+        long mallocs = null != counters ? counters.mallocs() - mallocsBefore : -1;
+        if (null != reused) {
+            reused.end();
+        }
+        System.out.println("INFO: strategy: [" + strategy + "], buffer: [" + bufferSize + "]," +
+                " inflater: [" + (reuse ? "reused" : "fresh") + "]," +
+                " ops/s: [" + String.format("%.1f", ops * 1e9 / (now - start)) + "]," +
+                " heap bytes/op: [" + (heap >= 0 ? heap / ops : -1) + "]," +
+                " updatewindow allocations/op: [" + (mallocs >= 0 ? String.format("%.3f", (double) mallocs / ops) : "n/a") + "]");
+    }
+
+    private void inflateOnce(Inflater reused, byte[] uncomp) throws Exception {
+        Inflater inf = null != reused ? reused : new Inflater(true);
+        try {
+            if (null != reused) {
+                inf.reset();
+            }
+            inf.setInput(comp);
+            int uncompCount = 0;
+            while (uncompCount < uncompLen) {
+                int infRes = inf.inflate(uncomp, 0, uncomp.length);
+                if (0 == infRes) break;
+                uncompCount += infRes;
+            }
+            if (uncompLen != uncompCount) {
+                throw new RuntimeException("ERROR: inflate operation failed," +
+                        " expected decompressed bytes: [" + uncompLen + "]," +
+                        " actual decompressed bytes: [" + uncompCount + "]");
+            }
+        } finally {
+            if (null == reused) {
+                inf.end();
+            }
+        }
+    }
+
+    // Thread#getId is deprecated in jdk19, ThreadMXBean#getCurrentThreadAllocatedBytes is not available in jdk8
+    @SuppressWarnings("deprecation")
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
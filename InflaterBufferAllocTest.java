@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 11)
+ * @summary Same check as InflaterAllocTest for the zero-copy input path: checks that
+ *          single pass inflating with Inflater#setInput(ByteBuffer) and Inflater#inflate(ByteBuffer)
+ *          from memory-mapped ("mmap-inflate" mode) and direct ("direct-inflate" mode)
+ *          input buffers into a direct output buffer does no "updatewindow" allocations.
+ *
+ * @compile InflaterAllocWorker.java
+ * @build InflaterAllocTest InflaterBuffers MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main InflaterBufferAllocTest
+ */
+public class InflaterBufferAllocTest {
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args none
+     */
+    public static void main(String[] args) throws Exception {
+        InflaterAllocTest.main(new String[]{"parallel", "cache", "mmap-inflate", "direct-inflate"});
+    }
+}
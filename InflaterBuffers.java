@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Access to Inflater#setInput(ByteBuffer) and Inflater#inflate(ByteBuffer) methods
+ * available in jdk11 and later, methods are bound with method handles
+ * so callers can be compiled and run on older jdks.
+ */
+public class InflaterBuffers {
+    private static final MethodHandle SET_INPUT = findVirtual("setInput", void.class);
+    private static final MethodHandle INFLATE = findVirtual("inflate", int.class);
+
+    private InflaterBuffers() {
+    }
+
+    /**
+     * Checks whether ByteBuffer methods are available in current jdk
+     *
+     * @return true if ByteBuffer methods are available
+     */
+    public static boolean isSupported() {
+        return null != SET_INPUT && null != INFLATE;
+    }
+
+    /**
+     * Calls Inflater#setInput(ByteBuffer)
+     *
+     * @param inf inflater
+     * @param input compressed data
+     */
+    public static void setInput(Inflater inf, ByteBuffer input) {
+        checkSupported();
+        try {
+            SET_INPUT.invokeExact(inf, input);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Calls Inflater#inflate(ByteBuffer)
+     *
+     * @param inf inflater
+     * @param output buffer for uncompressed data
+     * @return number of uncompressed bytes
+     */
+    public static int inflate(Inflater inf, ByteBuffer output) throws DataFormatException {
+        checkSupported();
+        try {
+            return (int) INFLATE.invokeExact(inf, output);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (DataFormatException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new RuntimeException("ERROR: Inflater ByteBuffer methods are not available," +
+                    " jdk11 or later is required, current version: [" + System.getProperty("java.version") + "]");
+        }
+    }
+
+    private static MethodHandle findVirtual(String name, Class<?> returnType) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Inflater.class, name,
+                    MethodType.methodType(returnType, ByteBuffer.class));
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+}
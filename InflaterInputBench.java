@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.Inflater;
+
+/**
+ * Benchmark for Inflater input paths, not run by jtreg.
+ *
+ * Inflates the first entry of a ZIP file in a single pass many times with a single
+ * reused Inflater and compares throughput of the byte[] input path with the
+ * zero-copy paths from memory-mapped and direct buffers into a direct output buffer.
+ * ByteBuffer paths require jdk11 or later and are skipped on older jdks.
+ *
+ * Usage: java InflaterInputBench [path/to/XSDHandler.class.zip] [iterations]
+ */
+public class InflaterInputBench {
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args optional ZIP file path (default XSDHandler.class.zip) and iterations count (default 10000)
+     */
+    public static void main(String[] args) throws Exception {
+        File zipFile = new File(args.length > 0 ? args[0] : "XSDHandler.class.zip");
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        ZipCentralDirectory.Entry en = ZipCentralDirectory.read(zipFile).get(0);
+        int compLen = (int) en.getCompressedSize();
+        int uncompLen = (int) en.getUncompressedSize();
+        RandomAccessFile raf = new RandomAccessFile(zipFile, "r");
+        try {
+            byte[] comp = new byte[compLen];
+            raf.seek(en.getDataOffset());
+            raf.readFully(comp);
+            ByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, en.getDataOffset(), compLen);
+            ByteBuffer direct = ByteBuffer.allocateDirect(compLen);
+            direct.put(comp);
+            direct.flip();
+            Inflater inf = new Inflater(true);
+            // two rounds, first one is a warmup
+            for (int round = 0; round < 2; round++) {
+                report("byte[]", uncompLen, iterations, benchArray(inf, comp, uncompLen, iterations));
+                if (InflaterBuffers.isSupported()) {
+                    report("mmap", uncompLen, iterations, benchBuffer(inf, mapped, uncompLen, iterations));
+                    report("direct", uncompLen, iterations, benchBuffer(inf, direct, uncompLen, iterations));
+                } else {
+                    System.out.println("INFO: ByteBuffer paths skipped, jdk11 or later is required");
+                }
+            }
+            inf.end();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static long benchArray(Inflater inf, byte[] comp, int uncompLen, int iterations) throws Exception {
+        byte[] uncomp = new byte[uncompLen];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            inf.reset();
+            inf.setInput(comp);
+            int uncompCount = 0;
+            while (uncompCount < uncompLen) {
+                int infRes = inf.inflate(uncomp, uncompCount, uncompLen - uncompCount);
+                if (0 == infRes) break;
+                uncompCount += infRes;
+            }
+            check(uncompLen, uncompCount);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long benchBuffer(Inflater inf, ByteBuffer comp, int uncompLen, int iterations) throws Exception {
+        ByteBuffer uncomp = ByteBuffer.allocateDirect(uncompLen);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            inf.reset();
+            InflaterBuffers.setInput(inf, comp.duplicate());
+            uncomp.clear();
+            while (uncomp.hasRemaining()) {
+                int infRes = InflaterBuffers.inflate(inf, uncomp);
+                if (0 == infRes) break;
+            }
+            check(uncompLen, uncomp.position());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void check(int expected, int actual) {
+        if (expected != actual) {
+            throw new RuntimeException("ERROR: inflate operation failed," +
+                    " expected decompressed bytes: [" + expected + "]," +
+                    " actual decompressed bytes: [" + actual + "]");
+        }
+    }
+
+    private static void report(String path, int uncompLen, int iterations, long nanos) {
+        double mb = (double) uncompLen * iterations / (1024d * 1024d);
+        System.out.println("INFO: path: [" + path + "]," +
+                " throughput: [" + String.format("%.1f", mb * 1e9 / nanos) + "] MB/s," +
+                " per inflate: [" + (nanos / iterations / 1000) + "] us");
+    }
+}
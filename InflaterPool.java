@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of reusable Inflater instances.
+ *
+ * Creating a new Inflater costs "inflateInit2" and, on the first inflate call that needs it,
+ * a window allocation in "updatewindow". Reused Inflater is reset on return to the pool,
+ * zlib's "inflateReset" keeps the allocated window, so inflating with pooled instances
+ * makes no native allocations after warm-up.
+ *
+ * Optionally the last returned Inflater is cached per thread to avoid contention on the
+ * shared queue. Shared queue is bounded, Inflaters returned to the full pool are ended.
+ * Instances cached per thread are not ended on close, they are cleaned up
+ * by Inflater's own finalization after the thread exits.
+ *
+ * Pool counts created, reused and ended Inflaters.
+ */
+public class InflaterPool {
+    private final boolean nowrap;
+    private final int maxSize;
+    private final ThreadLocal<Inflater> threadCache;
+    private final ConcurrentLinkedQueue<Inflater> shared = new ConcurrentLinkedQueue<Inflater>();
+    private final AtomicInteger sharedSize = new AtomicInteger();
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong endedCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param nowrap 'nowrap' flag for created Inflaters
+     * @param maxSize max number of Inflaters kept in shared queue
+     * @param threadCaching whether to cache one Inflater per thread
+     */
+    public InflaterPool(boolean nowrap, int maxSize, boolean threadCaching) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Invalid pool size: [" + maxSize + "]");
+        }
+        this.nowrap = nowrap;
+        this.maxSize = maxSize;
+        this.threadCache = threadCaching ? new ThreadLocal<Inflater>() : null;
+    }
+
+    /**
+     * Takes an Inflater from the pool, creates a new one if pool is empty
+     *
+     * @return Inflater ready to use
+     */
+    public Inflater borrow() {
+        if (null != threadCache) {
+            Inflater cached = threadCache.get();
+            if (null != cached) {
+                threadCache.set(null);
+                reusedCount.incrementAndGet();
+                return cached;
+            }
+        }
+        Inflater inf = shared.poll();
+        if (null != inf) {
+            sharedSize.decrementAndGet();
+            reusedCount.incrementAndGet();
+            return inf;
+        }
+        createdCount.incrementAndGet();
+        return new Inflater(nowrap);
+    }
+
+    /**
+     * Resets specified Inflater and returns it to the pool,
+     * Inflater is ended if the pool is full
+     *
+     * @param inf Inflater borrowed from this pool
+     */
+    public void release(Inflater inf) {
+        inf.reset();
+        if (null != threadCache && null == threadCache.get()) {
+            threadCache.set(inf);
+            return;
+        }
+        if (sharedSize.incrementAndGet() <= maxSize) {
+            shared.offer(inf);
+            return;
+        }
+        sharedSize.decrementAndGet();
+        inf.end();
+        endedCount.incrementAndGet();
+    }
+
+    /**
+     * Ends all Inflaters in the shared queue and Inflater cached for the current thread
+     */
+    public void close() {
+        if (null != threadCache) {
+            Inflater cached = threadCache.get();
+            if (null != cached) {
+                threadCache.remove();
+                cached.end();
+                endedCount.incrementAndGet();
+            }
+        }
+        Inflater inf;
+        while (null != (inf = shared.poll())) {
+            sharedSize.decrementAndGet();
+            inf.end();
+            endedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns number of Inflaters created by this pool
+     *
+     * @return number of created Inflaters
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns number of borrows served with a pooled Inflater
+     *
+     * @return number of reuses
+     */
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    /**
+     * Returns number of Inflaters ended by this pool
+     *
+     * @return number of ended Inflaters
+     */
+    public long getEndedCount() {
+        return endedCount.get();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 7)
+ * @summary Checks that Inflaters reused through InflaterPool make no additional "updatewindow"
+ *          allocations after warm-up: number of leaked "updatewindow" blocks after 100 single pass
+ *          inflate operations with pooled Inflaters ("pool" mode) must be the same as after
+ *          a single operation ("pool-warmup" mode).
+ *
+ *          Memcheck reports only blocks that are still allocated on exit, so windows of Inflaters
+ *          ended and re-created by the pool would not be seen, second run uses malloc interposer
+ *          library that counts all "updatewindow" allocations.
+ *
+ * @compile InflaterAllocWorker.java
+ * @build InflaterAllocTest InflaterPool PreloadCounters MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main InflaterPoolAllocTest
+ * @run main InflaterPoolAllocTest preload
+ */
+public class InflaterPoolAllocTest {
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args optional 'preload' to use malloc interposer library instead of memcheck
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<String>(Arrays.asList("parallel", "cache", "pool=pool-warmup"));
+        options.addAll(Arrays.asList(args));
+        InflaterAllocTest.main(options.toArray(new String[options.size()]));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 7)
+ * @summary Reports "updatewindow" allocations and throughput when XSDHandler class
+ *          is inflated through JDK stream wrappers: ZipFile#getInputStream,
+ *          InflaterInputStream and GZIPInputStream, with 512 bytes, 8 KB and 128 KB
+ *          buffers. 8133206 patch helps only when the whole result is inflated
+ *          in a single call, wrappers that feed input in chunks still allocate
+ *          zlib's window.
+ *
+ *          Runs InflaterAllocWorker in "zipfile-N", "inflaterstream-N" and "gzipstream-N"
+ *          modes under memcheck (valgrind), "smallbuf" mode is used to check that
+ *          leaks parsing works correctly and "noinflate" mode is used as a baseline.
+ *          With "preload" argument workers are run with malloc interposer library
+ *          instead of memcheck.
+ *
+ *          Allocations of the wrappers are only reported, test fails only
+ *          if the worker fails or 'smallbuf' leaks were not detected.
+ *
+ * @compile InflaterAllocWorker.java
+ * @build InflaterAllocTest MemcheckXmlScanner StackSignatureIndex PreloadCounters WorkerResultCache
+ * @run main/timeout=1200 InflaterStreamAllocTest parallel
+ */
+public class InflaterStreamAllocTest {
+    private static final String WORKER = "InflaterAllocWorker";
+    private static final String[] WRAPPERS = {"zipfile", "inflaterstream", "gzipstream"};
+    private static final int[] BUFFER_SIZES = {512, 8192, 131072};
+    private static final String THROUGHPUT_PREFIX = "throughput: [";
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args optional arguments: 'parallel' to run all workers at once,
+     *             'preload' to use malloc interposer library instead of memcheck
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> options = Arrays.asList(args);
+        boolean parallel = options.contains("parallel");
+        InflaterAllocTest.Backend backend = options.contains("preload") ?
+                InflaterAllocTest.Backend.PRELOAD : InflaterAllocTest.Backend.MEMCHECK;
+        List<String> modes = new ArrayList<String>();
+        modes.add("smallbuf");
+        modes.add("noinflate");
+        for (String wrapper : WRAPPERS) {
+            for (int size : BUFFER_SIZES) {
+                modes.add(wrapper + "-" + size);
+            }
+        }
+        if (InflaterAllocTest.Backend.PRELOAD == backend) {
+            InflaterAllocTest.buildPreloadLibrary();
+        }
+        if (parallel) {
+            System.out.println("Starting workers in " + modes + " modes in parallel");
+            InflaterAllocTest.runWorkersParallel(backend, WORKER, modes);
+        }
+
+        Map<String, Long> leaksCounts = new LinkedHashMap<String, Long>();
+        for (String mode : modes) {
+            File out = backend.outFile(WORKER, mode);
+            if (!parallel) {
+                System.out.println("Starting worker in '" + mode + "' mode");
+                InflaterAllocTest.runWorker(backend, WORKER, mode, out);
+            }
+            leaksCounts.put(mode, InflaterAllocTest.countLeaks(backend, out));
+        }
+        if (0 == leaksCounts.get("smallbuf")) {
+            throw new RuntimeException("Test failed," +
+                    " 'smallbuf' mode leaks were not detected, check: [" + backend.outFile(WORKER, "smallbuf") + "],");
+        }
+
+        long baseline = leaksCounts.get("noinflate");
+        System.out.println("Stream wrappers 'updatewindow' allocations (over 'noinflate' baseline) and throughput:");
+        for (String mode : modes.subList(2, modes.size())) {
+            System.out.println(String.format("%-24s allocations: [%d], throughput: [%s] MB/s",
+                    mode, leaksCounts.get(mode) - baseline, readThroughput(new File(WORKER + "." + mode + ".out"))));
+        }
+
+        System.out.println("Test passed");
+    }
+
+    /**
+     * Reads throughput reported by the last run of the worker
+     *
+     * @param workerOutFile worker's output file, output of multiple runs may be appended there
+     * @return throughput in MB/s, "n/a" if not reported
+     */
+    private static String readThroughput(File workerOutFile) throws IOException {
+        String res = "n/a";
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(workerOutFile));
+            String line;
+            while (null != (line = reader.readLine())) {
+                int idx = line.indexOf(THROUGHPUT_PREFIX);
+                if (-1 != idx) {
+                    int start = idx + THROUGHPUT_PREFIX.length();
+                    res = line.substring(start, line.indexOf(']', start));
+                }
+            }
+            return res;
+        } finally {
+            if (null != reader) {
+                reader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Streaming scanner for memcheck's XML output that feeds <stack> elements
+ * into a StackSignatureIndex, along with <leakedbytes> and <leakedblocks>
+ * values from the <xwhat> element of the enclosing leak record.
+ *
+ * Input file is memory-mapped in large windows and processed byte-by-byte
+ * with a state machine, function names are matched without allocating.
+ * All state is kept between bytes, so element names and function names
+ * split across mapping windows are handled.
+ *
+ * Only the subset of XML emitted by memcheck is supported: attributes,
+ * comments and CDATA sections are not interpreted.
+ */
+public class MemcheckXmlScanner {
+    private static final long WINDOW_SIZE = 64 << 20;
+    private static final int TAG_NAME_MAX_LEN = 16;
+
+    private static final byte[] TAG_ERROR = "error".getBytes(US_ASCII);
+    private static final byte[] TAG_LEAKED_BYTES = "leakedbytes".getBytes(US_ASCII);
+    private static final byte[] TAG_LEAKED_BYTES_END = "/leakedbytes".getBytes(US_ASCII);
+    private static final byte[] TAG_LEAKED_BLOCKS = "leakedblocks".getBytes(US_ASCII);
+    private static final byte[] TAG_LEAKED_BLOCKS_END = "/leakedblocks".getBytes(US_ASCII);
+    private static final byte[] TAG_STACK = "stack".getBytes(US_ASCII);
+    private static final byte[] TAG_STACK_END = "/stack".getBytes(US_ASCII);
+    private static final byte[] TAG_FN = "fn".getBytes(US_ASCII);
+    private static final byte[] TAG_FN_END = "/fn".getBytes(US_ASCII);
+
+    private enum TextState {TEXT_NONE, TEXT_FN, TEXT_LEAKED_BYTES, TEXT_LEAKED_BLOCKS}
+
+    private final StackSignatureIndex index;
+
+    // element state
+    private final byte[] tagName = new byte[TAG_NAME_MAX_LEN];
+    private int tagLen = 0;
+    private boolean inTag = false;
+    private boolean tagNameDone = false;
+    private boolean inStack = false;
+    private TextState textState = TextState.TEXT_NONE;
+
+    // leak record state
+    private long leakedBytes = 0;
+    private long leakedBlocks = 0;
+
+    /**
+     * Constructor
+     *
+     * @param index signatures to match stacks against, results are collected there
+     */
+    public MemcheckXmlScanner(StackSignatureIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Scans a specified file, may be called multiple times to accumulate results
+     *
+     * @param file XML file with memcheck's output
+     */
+    public void scan(File file) throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += WINDOW_SIZE) {
+                long len = Math.min(WINDOW_SIZE, size - pos);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                for (int i = 0; i < len; i++) {
+                    update(window.get(i));
+                }
+            }
+        } finally {
+            if (null != raf) {
+                raf.close();
+            }
+        }
+    }
+
+    private void update(byte b) {
+        if (inTag) {
+            if ('>' == b) {
+                inTag = false;
+                endTag();
+            } else if (!tagNameDone) {
+                if (' ' == b || '\t' == b || '\n' == b || '\r' == b || ('/' == b && tagLen > 0)) {
+                    tagNameDone = true;
+                } else {
+                    if (tagLen < TAG_NAME_MAX_LEN) {
+                        tagName[tagLen] = b;
+                    }
+                    tagLen += 1;
+                }
+            }
+        } else if ('<' == b) {
+            inTag = true;
+            tagNameDone = false;
+            tagLen = 0;
+        } else {
+            switch (textState) {
+                case TEXT_FN:
+                    index.updateFn(b);
+                    break;
+                case TEXT_LEAKED_BYTES:
+                    leakedBytes = appendDigit(leakedBytes, b);
+                    break;
+                case TEXT_LEAKED_BLOCKS:
+                    leakedBlocks = appendDigit(leakedBlocks, b);
+                    break;
+            }
+        }
+    }
+
+    private void endTag() {
+        if (inStack) {
+            if (tagNameEquals(TAG_FN)) {
+                textState = TextState.TEXT_FN;
+                index.startFn();
+            } else if (tagNameEquals(TAG_FN_END)) {
+                textState = TextState.TEXT_NONE;
+                index.endFn();
+            } else if (tagNameEquals(TAG_STACK_END)) {
+                inStack = false;
+                index.endStack(leakedBytes, leakedBlocks);
+            }
+        } else if (tagNameEquals(TAG_STACK)) {
+            inStack = true;
+            index.startStack();
+        } else if (tagNameEquals(TAG_ERROR)) {
+            leakedBytes = 0;
+            leakedBlocks = 0;
+        } else if (tagNameEquals(TAG_LEAKED_BYTES)) {
+            textState = TextState.TEXT_LEAKED_BYTES;
+        } else if (tagNameEquals(TAG_LEAKED_BLOCKS)) {
+            textState = TextState.TEXT_LEAKED_BLOCKS;
+        } else if (tagNameEquals(TAG_LEAKED_BYTES_END) || tagNameEquals(TAG_LEAKED_BLOCKS_END)) {
+            textState = TextState.TEXT_NONE;
+        }
+    }
+
+    private boolean tagNameEquals(byte[] name) {
+        if (name.length != tagLen) {
+            return false;
+        }
+        for (int i = 0; i < tagLen; i++) {
+            if (name[i] != tagName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long appendDigit(long value, byte b) {
+        return b >= '0' && b <= '9' ? value * 10 + (b - '0') : value;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Benchmark for MemcheckXmlScanner, not run by jtreg.
+ *
+ * Generates a synthetic memcheck XML file of a specified size, where every
+ * 16th leak record has the "updatewindow" stack, and compares scanning
+ * throughput with a SAX parser that creates a String for every <fn> entry.
+ *
+ * Usage: java MemcheckXmlScannerBench [size_mb] [iterations]
+ */
+public class MemcheckXmlScannerBench {
+    private static final String[] CHAIN = {"malloc", "updatewindow", "inflate",
+            "Java_java_util_zip_Inflater_inflateBytes"};
+    private static final String[] OTHER_FNS = {"malloc", "calloc", "realloc", "os::malloc",
+            "AllocateHeap", "ChunkPool::allocate", "Arena::grow", "JavaCalls::call_helper",
+            "Java_java_util_zip_ZipFile_open", "JVM_DefineClassWithSource", "start_thread", "clone"};
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args optional file size in MB (default 256) and iterations count (default 5)
+     */
+    public static void main(String[] args) throws Exception {
+        int sizeMb = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        File file = File.createTempFile("MemcheckXmlScannerBench", ".xml");
+        file.deleteOnExit();
+        long expected = generate(file, (long) sizeMb << 20);
+        double mb = file.length() / (1024d * 1024d);
+        System.out.println("INFO: generated file: [" + file.getAbsolutePath() + "]," +
+                " size: [" + file.length() + "], expected leaks: [" + expected + "]");
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            StackSignatureIndex index = new StackSignatureIndex();
+            index.add("updatewindow", CHAIN);
+            new MemcheckXmlScanner(index).scan(file);
+            long scanned = index.getCount("updatewindow");
+            long scanNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int parsed = countSax(file);
+            long saxNanos = System.nanoTime() - start;
+            if (expected != scanned || expected != parsed) {
+                throw new RuntimeException("ERROR: leaks count mismatch, expected: [" + expected + "]," +
+                        " scanner: [" + scanned + "], SAX: [" + parsed + "]");
+            }
+            System.out.println("INFO: iteration: [" + i + "]," +
+                    " scanner: [" + format(mb, scanNanos) + "] MB/s," +
+                    " SAX: [" + format(mb, saxNanos) + "] MB/s");
+        }
+    }
+
+    /**
+     * Writes a synthetic memcheck XML file
+     *
+     * @param file output file
+     * @param size approximate size of the file in bytes
+     * @return number of records with the "updatewindow" stack written
+     */
+    private static int generate(File file, long size) throws IOException {
+        Random random = new Random(42);
+        Writer writer = null;
+        int chains = 0;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8), 1 << 16);
+            writer.write("<?xml version=\"1.0\"?>\n\n<valgrindoutput>\n\n<protocolversion>4</protocolversion>\n");
+            long written = 0;
+            for (int unique = 0; written < size; unique++) {
+                StringBuilder sb = new StringBuilder(2048);
+                int bytes = 1 + random.nextInt(65536);
+                sb.append("<error>\n  <unique>0x").append(Integer.toHexString(unique)).append("</unique>\n")
+                        .append("  <tid>1</tid>\n  <kind>Leak_StillReachable</kind>\n  <xwhat>\n")
+                        .append("    <text>").append(bytes).append(" bytes in 1 blocks are still reachable</text>\n")
+                        .append("    <leakedbytes>").append(bytes).append("</leakedbytes>\n")
+                        .append("    <leakedblocks>1</leakedblocks>\n  </xwhat>\n  <stack>\n");
+                boolean chain = 0 == unique % 16;
+                for (int i = 0; i < 12; i++) {
+                    String fn = chain && i < CHAIN.length ? CHAIN[i] : OTHER_FNS[random.nextInt(OTHER_FNS.length)];
+                    sb.append("    <frame>\n      <ip>0x").append(Long.toHexString(random.nextLong())).append("</ip>\n")
+                            .append("      <obj>/usr/lib64/libz.so.1.2.7</obj>\n")
+                            .append("      <fn>").append(fn).append("</fn>\n    </frame>\n");
+                }
+                sb.append("  </stack>\n</error>\n\n");
+                chains += chain ? 1 : 0;
+                writer.write(sb.toString());
+                written += sb.length();
+            }
+            writer.write("</valgrindoutput>\n");
+        } finally {
+            if (null != writer) {
+                writer.close();
+            }
+        }
+        return chains;
+    }
+
+    /**
+     * Counts leaks using SAX parser creating a String for each <fn> entry,
+     * used as a baseline
+     *
+     * @param file XML file with memcheck's output
+     * @return number of 'updatewindow' leaks found
+     */
+    private static int countSax(File file) throws Exception {
+        XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        final int[] count = new int[1];
+        xmlReader.setContentHandler(new DefaultHandler() {
+            private boolean inFn = false;
+            private int chainPos = 0;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("stack".equals(qName)) {
+                    chainPos = 0;
+                }
+                inFn = "fn".equals(qName);
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (!inFn) {
+                    return;
+                }
+                String st = new String(ch, start, length);
+                if (CHAIN[chainPos].equals(st)) {
+                    chainPos += 1;
+                } else {
+                    chainPos = CHAIN[0].equals(st) ? 1 : 0;
+                }
+                if (CHAIN.length == chainPos) {
+                    count[0] += 1;
+                    chainPos = 0;
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                inFn = false;
+            }
+        });
+        InputStream is = null;
+        try {
+            is = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+            xmlReader.parse(new InputSource(is));
+        } finally {
+            if (null != is) {
+                is.close();
+            }
+        }
+        return count[0];
+    }
+
+    private static String format(double mb, long nanos) {
+        return String.format("%.1f", mb * 1e9 / nanos);
+    }
+}
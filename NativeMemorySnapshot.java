@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import javax.management.ObjectName;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+/**
+ * In-process snapshot of native memory counters, two snapshots taken around
+ * an operation give native memory delta of this operation.
+ *
+ * zlib allocates its memory with plain malloc that is not tracked by
+ * the JVM's Native Memory Tracking, so allocations done by Inflater
+ * are taken from the InflaterAllocPreload.c malloc interposer library live counters
+ * (see PreloadCounters). NMT total committed memory (when JVM is run with
+ * -XX:NativeMemoryTracking=summary or detail) and process RSS are collected
+ * too to show the JVM's own memory changes.
+ *
+ * Snapshots are cheap enough to be taken in any process loaded with
+ * the interposer library, not only in test workers.
+ */
+public class NativeMemorySnapshot {
+    private static final String NMT_TOTAL_PREFIX = "Total: reserved=";
+    private static final String NMT_COMMITTED_PREFIX = "committed=";
+
+    private final long mallocs;
+    private final long bytes;
+    private final long frees;
+    private final long nmtCommittedKb;
+    private final long rssKb;
+
+    private NativeMemorySnapshot(long mallocs, long bytes, long frees, long nmtCommittedKb, long rssKb) {
+        this.mallocs = mallocs;
+        this.bytes = bytes;
+        this.frees = frees;
+        this.nmtCommittedKb = nmtCommittedKb;
+        this.rssKb = rssKb;
+    }
+
+    /**
+     * Takes a snapshot, counters that are not available are set to -1
+     *
+     * @param counters interposer library counters, may be null
+     * @return snapshot
+     */
+    public static NativeMemorySnapshot take(PreloadCounters counters) {
+        long nmt = readNmtCommittedKb();
+        long rss = readRssKb();
+        if (null == counters) {
+            return new NativeMemorySnapshot(-1, -1, -1, nmt, rss);
+        }
+        return new NativeMemorySnapshot(counters.mallocs(), counters.bytes(), counters.frees(), nmt, rss);
+    }
+
+    /**
+     * Computes differences between this snapshot and a specified earlier one,
+     * counters not available in any of the snapshots are reported as -1
+     *
+     * @param before snapshot taken before the operation
+     * @return 'mallocs', 'bytes', 'frees', 'nmtCommittedKb' and 'rssKb' deltas
+     */
+    public Properties delta(NativeMemorySnapshot before) {
+        Properties res = new Properties();
+        res.setProperty("mallocs", delta(mallocs, before.mallocs));
+        res.setProperty("bytes", delta(bytes, before.bytes));
+        res.setProperty("frees", delta(frees, before.frees));
+        res.setProperty("nmtCommittedKb", delta(nmtCommittedKb, before.nmtCommittedKb));
+        res.setProperty("rssKb", delta(rssKb, before.rssKb));
+        return res;
+    }
+
+    private static String delta(long after, long before) {
+        return String.valueOf(after < 0 || before < 0 ? -1 : after - before);
+    }
+
+    /**
+     * Reads total committed memory from NMT summary using DiagnosticCommand MBean (jdk8 or later)
+     *
+     * @return committed memory in kB, -1 if NMT is not enabled or not available
+     */
+    private static long readNmtCommittedKb() {
+        try {
+            String summary = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                    new ObjectName("com.sun.management:type=DiagnosticCommand"), "vmNativeMemory",
+                    new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+            int total = summary.indexOf(NMT_TOTAL_PREFIX);
+            if (-1 == total) {
+                return -1;
+            }
+            int start = summary.indexOf(NMT_COMMITTED_PREFIX, total) + NMT_COMMITTED_PREFIX.length();
+            return Long.parseLong(summary.substring(start, summary.indexOf("KB", start)));
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads VmRSS value from /proc/self/status
+     *
+     * @return RSS in kB, -1 if not available
+     */
+    private static long readRssKb() {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader("/proc/self/status"));
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith("VmRSS:")) {
+                    String value = line.substring("VmRSS:".length()).trim();
+                    return Long.parseLong(value.substring(0, value.indexOf(' ')));
+                }
+            }
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            if (null != reader) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
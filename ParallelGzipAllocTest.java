@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 7)
+ * @summary Checks that ParallelGzipInflater makes no "updatewindow" allocations inflating
+ *          BGZF-style multi-member GZIP data in parallel with pooled Inflaters, each member
+ *          is inflated in a single pass into its slice of the output sized from ISIZE.
+ *          Number of leaked "updatewindow" blocks in "bgzf" mode must be the same as in
+ *          "noinflate" mode.
+ *
+ * @compile InflaterAllocWorker.java
+ * @build InflaterAllocTest ParallelGzipInflater InflaterPool DeflaterAllocWorker ZipCentralDirectory MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main/timeout=1200 ParallelGzipAllocTest
+ */
+public class ParallelGzipAllocTest {
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args none
+     */
+    public static void main(String[] args) throws Exception {
+        InflaterAllocTest.main(new String[]{"parallel", "cache", "bgzf"});
+    }
+}
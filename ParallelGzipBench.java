@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Throughput scaling benchmark for ParallelGzipInflater, not run by jtreg.
+ *
+ * Compresses the uncompressed XSDHandler.class repeated up to the specified size
+ * into BGZF-style multi-member GZIP data and inflates it with ParallelGzipInflater
+ * on fork-join pools with parallelism 1, 2, 4 ... up to the number of available
+ * processors. Reports throughput in MB/s of uncompressed data and speedup relative
+ * to sequential inflating of the same data with GZIPInputStream.
+ *
+ * Usage: java ParallelGzipBench [path/to/XSDHandler.class.zip] [size_mb] [iterations]
+ */
+public class ParallelGzipBench {
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args optional ZIP file path (default XSDHandler.class.zip), uncompressed
+     *             size in MB (default 64) and iterations count (default 10)
+     */
+    public static void main(String[] args) throws Exception {
+        File zipFile = new File(args.length > 0 ? args[0] : "XSDHandler.class.zip");
+        int sizeMb = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        byte[] xsd = DeflaterAllocWorker.readUncompressed(zipFile);
+        int copies = Math.max(1, (sizeMb << 20) / xsd.length);
+        byte[] data = new byte[xsd.length * copies];
+        for (int i = 0; i < copies; i++) {
+            System.arraycopy(xsd, 0, data, i * xsd.length, xsd.length);
+        }
+        byte[] gzip = ParallelGzipInflater.compress(data, Deflater.DEFAULT_COMPRESSION);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("INFO: uncompressed: [" + data.length + "], compressed: [" + gzip.length + "]," +
+                " members: [" + ParallelGzipInflater.scan(gzip, 0, gzip.length).size() + "]," +
+                " processors: [" + cores + "]");
+        // two rounds, first one is a warmup
+        for (int round = 0; round < 2; round++) {
+            double baseline = runSequential(data, gzip, iterations);
+            System.out.println("INFO: sequential GZIPInputStream: [" + String.format("%.1f", baseline) + "] MB/s");
+            for (int parallelism = 1; ; parallelism = Math.min(parallelism * 2, cores)) {
+                double mbPerS = runParallel(data, gzip, parallelism, iterations);
+                System.out.println("INFO: parallelism: [" + parallelism + "]," +
+                        " inflate: [" + String.format("%.1f", mbPerS) + "] MB/s," +
+                        " speedup: [" + String.format("%.2f", mbPerS / baseline) + "]");
+                if (parallelism >= cores) break;
+            }
+        }
+    }
+
+    private static double runSequential(byte[] data, byte[] gzip, int iterations) throws Exception {
+        byte[] restored = new byte[data.length];
+        long nanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(gzip), 1 << 16);
+            int uncompCount = 0;
+            try {
+                while (uncompCount < restored.length) {
+                    int read = is.read(restored, uncompCount, restored.length - uncompCount);
+                    if (-1 == read) break;
+                    uncompCount += read;
+                }
+            } finally {
+                is.close();
+            }
+            nanos += System.nanoTime() - start;
+            check(data, restored, uncompCount);
+        }
+        return (double) data.length * iterations / (1024d * 1024d) * 1e9 / nanos;
+    }
+
+    private static double runParallel(byte[] data, byte[] gzip, int parallelism, int iterations) throws Exception {
+        ForkJoinPool fjp = new ForkJoinPool(parallelism);
+        InflaterPool pool = new InflaterPool(true, parallelism * 2, false);
+        ParallelGzipInflater pgi = new ParallelGzipInflater(fjp, pool, 4);
+        long nanos = 0;
+        try {
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                byte[] restored = pgi.inflate(gzip, 0, gzip.length);
+                nanos += System.nanoTime() - start;
+                check(data, restored, restored.length);
+            }
+        } finally {
+            fjp.shutdown();
+            pool.close();
+        }
+        return (double) data.length * iterations / (1024d * 1024d) * 1e9 / nanos;
+    }
+
+    private static void check(byte[] data, byte[] restored, int uncompCount) {
+        if (data.length != uncompCount || !Arrays.equals(data, restored)) {
+            throw new RuntimeException("ERROR: inflate failed," +
+                    " expected decompressed bytes: [" + data.length + "]," +
+                    " actual decompressed bytes: [" + uncompCount + "]");
+        }
+    }
+}
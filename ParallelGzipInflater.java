@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Inflates multi-member GZIP data with members inflated in parallel on a fork-join pool.
+ *
+ * Member boundaries are taken from the BGZF-style "BC" extra subfield (as written by
+ * bgzip and by {@link #compress(byte[], int)}) that holds the member size, so members
+ * are located without inflating. Uncompressed sizes are taken from members ISIZE,
+ * each member is inflated in a single call with a pooled Inflater directly into its
+ * slice of the single output array, so no window allocations are done by zlib
+ * (on jdk with 8133206 patch) and results are joined without copying. CRC-32
+ * of each member is checked.
+ *
+ * Data without "BC" subfield in every member (e.g. produced by gzip or pigz) is inflated
+ * sequentially with GZIPInputStream, as its member boundaries cannot be found without inflating.
+ * Total uncompressed size must fit into a single array.
+ */
+public class ParallelGzipInflater {
+    public static final int BGZF_MAX_INPUT = 0xff00;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int HEADER_LEN = 10;
+    private static final int TRAILER_LEN = 8;
+    private static final int BGZF_HEADER_LEN = 18;
+    private static final int MAX_MEMBER_SIZE = 0x10000;
+
+    private final ForkJoinPool pool;
+    private final InflaterPool inflaters;
+    private final int membersPerTask;
+
+    /**
+     * Constructor
+     *
+     * @param pool fork-join pool to run tasks on
+     * @param inflaters pool of 'nowrap' Inflaters
+     * @param membersPerTask max number of members inflated sequentially in a single task
+     */
+    public ParallelGzipInflater(ForkJoinPool pool, InflaterPool inflaters, int membersPerTask) {
+        if (membersPerTask < 1) {
+            throw new IllegalArgumentException("Invalid members per task: [" + membersPerTask + "]");
+        }
+        this.pool = pool;
+        this.inflaters = inflaters;
+        this.membersPerTask = membersPerTask;
+    }
+
+    /**
+     * Inflates specified GZIP data
+     *
+     * @param gzip GZIP data
+     * @param off data offset
+     * @param len data length
+     * @return uncompressed data
+     * @throws DataFormatException on invalid GZIP data or CRC mismatch
+     */
+    public byte[] inflate(byte[] gzip, int off, int len) throws DataFormatException {
+        List<Member> members = scan(gzip, off, len);
+        if (null == members) {
+            return inflateSequential(gzip, off, len);
+        }
+        long total = 0;
+        for (Member me : members) {
+            me.outOffset = (int) total;
+            total += me.size;
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new DataFormatException("Uncompressed data is too big: [" + total + "]");
+            }
+        }
+        byte[] out = new byte[(int) total];
+        try {
+            pool.invoke(new MembersTask(gzip, out, members, 0, members.size()));
+        } catch (RuntimeException e) {
+            // fork-join pool may wrap the exception thrown by a task once more
+            for (Throwable th = e.getCause(); null != th; th = th.getCause()) {
+                if (th instanceof DataFormatException) {
+                    throw (DataFormatException) th;
+                }
+            }
+            throw e;
+        }
+        return out;
+    }
+
+    /**
+     * Locates members of the specified GZIP data using "BC" extra subfield
+     *
+     * @param gzip GZIP data
+     * @param off data offset
+     * @param len data length
+     * @return members in data order, null if any member does not have "BC" subfield
+     * @throws DataFormatException on invalid GZIP header
+     */
+    public static List<Member> scan(byte[] gzip, int off, int len) throws DataFormatException {
+        List<Member> res = new ArrayList<Member>();
+        int end = off + len;
+        int pos = off;
+        while (pos < end) {
+            if (end - pos < HEADER_LEN + TRAILER_LEN || 0x1f != (gzip[pos] & 0xff) ||
+                    0x8b != (gzip[pos + 1] & 0xff) || 8 != gzip[pos + 2]) {
+                throw new DataFormatException("Invalid GZIP member header, offset: [" + (pos - off) + "]");
+            }
+            int flags = gzip[pos + 3] & 0xff;
+            if (0 == (flags & FEXTRA)) {
+                return null;
+            }
+            int xlen = u16(gzip, pos + HEADER_LEN);
+            int hpos = pos + HEADER_LEN + 2;
+            int xend = hpos + xlen;
+            if (xend > end) {
+                throw new DataFormatException("Invalid GZIP extra field length, offset: [" + (pos - off) + "]");
+            }
+            long memberSize = -1;
+            while (hpos + 4 <= xend) {
+                int slen = u16(gzip, hpos + 2);
+                if (hpos + 4 + slen > xend) {
+                    throw new DataFormatException("Invalid GZIP extra subfield length, offset: [" + (pos - off) + "]");
+                }
+                if ('B' == gzip[hpos] && 'C' == gzip[hpos + 1] && 2 == slen) {
+                    memberSize = u16(gzip, hpos + 4) + 1;
+                }
+                hpos += 4 + slen;
+            }
+            if (-1 == memberSize) {
+                return null;
+            }
+            hpos = skipHeaderFields(gzip, xend, end, flags);
+            int memberEnd = pos + (int) memberSize;
+            if (memberEnd > end || memberEnd - TRAILER_LEN < hpos) {
+                throw new DataFormatException("Invalid GZIP member size, offset: [" + (pos - off) + "]");
+            }
+            Member me = new Member();
+            me.dataOffset = hpos;
+            me.dataLength = memberEnd - TRAILER_LEN - hpos;
+            me.crc = u32(gzip, memberEnd - TRAILER_LEN);
+            long isize = u32(gzip, memberEnd - 4);
+            // BGZF member holds at most 64 KB of uncompressed data
+            if (isize > MAX_MEMBER_SIZE) {
+                throw new DataFormatException("Invalid GZIP member ISIZE, offset: [" + (pos - off) + "]," +
+                        " ISIZE: [" + isize + "]");
+            }
+            me.size = (int) isize;
+            res.add(me);
+            pos = memberEnd;
+        }
+        return res;
+    }
+
+    /**
+     * Compresses specified data into BGZF-style multi-member GZIP data,
+     * each member holds up to BGZF_MAX_INPUT bytes of uncompressed data
+     *
+     * @param data data to compress
+     * @param level compression level
+     * @return GZIP data
+     */
+    public static byte[] compress(byte[] data, int level) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 2 + 64);
+        Deflater def = new Deflater(level, true);
+        CRC32 crc = new CRC32();
+        // deflated member must fit into 64 KB with header and trailer
+        byte[] buf = new byte[0x10000];
+        try {
+            for (int pos = 0; pos < data.length || 0 == pos; pos += BGZF_MAX_INPUT) {
+                int len = Math.min(BGZF_MAX_INPUT, data.length - pos);
+                def.reset();
+                def.setInput(data, pos, len);
+                def.finish();
+                int compLen = 0;
+                while (!def.finished()) {
+                    compLen += def.deflate(buf, compLen, buf.length - compLen);
+                }
+                crc.reset();
+                crc.update(data, pos, len);
+                int bsize = BGZF_HEADER_LEN + compLen + TRAILER_LEN - 1;
+                // magic, CM = deflate, FLG = FEXTRA, no mtime, no XFL, OS = unknown,
+                // XLEN = 6, "BC" subfield with BSIZE
+                baos.write(new byte[]{0x1f, (byte) 0x8b, 8, FEXTRA, 0, 0, 0, 0, 0, (byte) 0xff,
+                        6, 0, 'B', 'C', 2, 0, (byte) bsize, (byte) (bsize >>> 8)});
+                baos.write(buf, 0, compLen);
+                writeIntLE(baos, crc.getValue());
+                writeIntLE(baos, len);
+                if (0 == len) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            def.end();
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] inflateSequential(byte[] gzip, int off, int len) throws DataFormatException {
+        GZIPInputStream is = null;
+        try {
+            is = new GZIPInputStream(new ByteArrayInputStream(gzip, off, len), 0x10000);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(len * 4);
+            byte[] buf = new byte[0x10000];
+            int read;
+            while (-1 != (read = is.read(buf))) {
+                baos.write(buf, 0, read);
+            }
+            return baos.toByteArray();
+        } catch (IOException e) {
+            DataFormatException dfe = new DataFormatException(e.getMessage());
+            dfe.initCause(e);
+            throw dfe;
+        } finally {
+            if (null != is) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static int skipHeaderFields(byte[] gzip, int pos, int end, int flags) throws DataFormatException {
+        if (0 != (flags & FNAME)) {
+            pos = skipZeroTerminated(gzip, pos, end);
+        }
+        if (0 != (flags & FCOMMENT)) {
+            pos = skipZeroTerminated(gzip, pos, end);
+        }
+        if (0 != (flags & FHCRC)) {
+            pos += 2;
+        }
+        return pos;
+    }
+
+    private static int skipZeroTerminated(byte[] gzip, int pos, int end) throws DataFormatException {
+        while (pos < end && 0 != gzip[pos]) {
+            pos += 1;
+        }
+        if (pos == end) {
+            throw new DataFormatException("Unterminated GZIP header field");
+        }
+        return pos + 1;
+    }
+
+    private static int u16(byte[] buf, int pos) {
+        return (buf[pos] & 0xff) | (buf[pos + 1] & 0xff) << 8;
+    }
+
+    private static long u32(byte[] buf, int pos) {
+        return (u16(buf, pos) & 0xffffL) | ((long) u16(buf, pos + 2)) << 16;
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream baos, long value) {
+        for (int i = 0; i < 4; i++) {
+            baos.write((int) (value >>> (i * 8)));
+        }
+    }
+
+    /**
+     * GZIP member location
+     */
+    public static class Member {
+        private int dataOffset;
+        private int dataLength;
+        private long crc;
+        private int size;
+        private int outOffset;
+
+        public int getDataOffset() {
+            return dataOffset;
+        }
+
+        public int getDataLength() {
+            return dataLength;
+        }
+
+        public int getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Inflates a range of members, splitting it in halves while it is bigger than membersPerTask
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private class MembersTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] gzip;
+        private final byte[] out;
+        private final List<Member> members;
+        private final int from;
+        private final int to;
+
+        MembersTask(byte[] gzip, byte[] out, List<Member> members, int from, int to) {
+            this.gzip = gzip;
+            this.out = out;
+            this.members = members;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > membersPerTask) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MembersTask(gzip, out, members, from, mid),
+                        new MembersTask(gzip, out, members, mid, to));
+                return;
+            }
+            Inflater inf = inflaters.borrow();
+            CRC32 crc = new CRC32();
+            byte[] scratch = new byte[1];
+            try {
+                for (int i = from; i < to; i++) {
+                    inflateMember(inf, crc, scratch, members.get(i));
+                    inf.reset();
+                }
+            } catch (DataFormatException e) {
+                throw new RuntimeException(e);
+            } finally {
+                inflaters.release(inf);
+            }
+        }
+
+        private void inflateMember(Inflater inf, CRC32 crc, byte[] scratch, Member me) throws DataFormatException {
+            inf.setInput(gzip, me.dataOffset, me.dataLength);
+            int end = me.outOffset + me.size;
+            int pos = me.outOffset;
+            while (!inf.finished()) {
+                // when the slice is full, end of the stream is inflated into a scratch buffer
+                int infRes = pos < end ? inf.inflate(out, pos, end - pos) : inf.inflate(scratch, 0, 1);
+                if ((pos == end && infRes > 0) ||
+                        (0 == infRes && !inf.finished() && (inf.needsInput() || inf.needsDictionary()))) {
+                    throw new DataFormatException("GZIP member size does not match ISIZE, offset: [" +
+                            me.dataOffset + "], ISIZE: [" + me.size + "]");
+                }
+                pos += infRes;
+            }
+            crc.reset();
+            crc.update(out, me.outOffset, me.size);
+            if (pos != end || crc.getValue() != me.crc) {
+                throw new DataFormatException("GZIP member CRC or size mismatch, offset: [" + me.dataOffset + "]");
+            }
+        }
+    }
+}
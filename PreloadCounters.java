@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Live view of the counters of the InflaterAllocPreload.c malloc interposer library.
+ *
+ * Interposer keeps its counters in a shared memory-mapped file when
+ * INFLATER_ALLOC_PRELOAD_COUNTERS environment variable is set, this class
+ * maps the same file so the worker can read counters before and after
+ * the specific operations.
+ */
+public class PreloadCounters {
+    private static final String COUNTERS_ENV = "INFLATER_ALLOC_PRELOAD_COUNTERS";
+    private static final int MALLOCS_OFFSET = 0;
+    private static final int BYTES_OFFSET = 8;
+    private static final int FREES_OFFSET = 16;
+    private static final int COUNTERS_SIZE = 24;
+
+    private final MappedByteBuffer buffer;
+
+    private PreloadCounters(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps the counters file specified with INFLATER_ALLOC_PRELOAD_COUNTERS
+     * environment variable
+     *
+     * @return counters view or null if process is run without interposer library
+     */
+    public static PreloadCounters open() throws IOException {
+        String path = System.getenv(COUNTERS_ENV);
+        if (null == path) {
+            return null;
+        }
+        File file = new File(path);
+        if (file.length() < COUNTERS_SIZE) {
+            throw new RuntimeException("ERROR: invalid interposer counters file: [" + file.getAbsolutePath() + "]," +
+                    " check that interposer library is specified in LD_PRELOAD");
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, COUNTERS_SIZE);
+            buffer.order(ByteOrder.nativeOrder());
+            return new PreloadCounters(buffer);
+        } finally {
+            if (null != raf) {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Returns number of 'updatewindow' allocations done so far
+     *
+     * @return number of allocations
+     */
+    public long mallocs() {
+        return buffer.getLong(MALLOCS_OFFSET);
+    }
+
+    /**
+     * Returns number of bytes allocated through 'updatewindow' so far
+     *
+     * @return number of bytes
+     */
+    public long bytes() {
+        return buffer.getLong(BYTES_OFFSET);
+    }
+
+    /**
+     * Returns number of frees of 'updatewindow' allocations done so far
+     *
+     * @return number of frees
+     */
+    public long frees() {
+        return buffer.getLong(FREES_OFFSET);
+    }
+}
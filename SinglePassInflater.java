@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.util.ArrayDeque;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Inflates compressed data in a single call into a right-sized output buffer,
+ * so zlib does not need to allocate the window in "updatewindow" (on jdk with 8133206 patch).
+ *
+ * Output buffer size is taken from the known uncompressed size (ZIP header, GZIP ISIZE
+ * or other metadata) when it is specified, otherwise it is estimated from the compressed
+ * size and compression ratio seen so far: estimate grows immediately to the highest observed
+ * ratio and decays slowly. When the buffer turns out to be too small, inflating continues
+ * into a buffer twice as big (this fallback makes zlib allocate the window).
+ *
+ * Output buffers are taken from a pool of power-of-two size classes from 4 KB to 1 GB,
+ * bigger buffers are not pooled. Not thread-safe, one instance should be used per thread.
+ *
+ * Instance counts single-pass hits, fallbacks and estimated sizes.
+ */
+public class SinglePassInflater {
+    public static final long UNKNOWN_SIZE = -1;
+
+    private static final int MIN_CLASS_SHIFT = 12;
+    private static final int MAX_CLASS_SHIFT = 30;
+    private static final double INITIAL_RATIO = 4;
+    private static final double RATIO_DECAY = 0.9;
+    private static final double ESTIMATE_HEADROOM = 1.25;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<byte[]>[] classes = new ArrayDeque[MAX_CLASS_SHIFT + 1];
+    private final int maxBuffersPerClass;
+    private double ratioEstimate = INITIAL_RATIO;
+
+    private long hitCount = 0;
+    private long fallbackCount = 0;
+    private long estimatedCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param maxBuffersPerClass max number of released buffers kept for each size class
+     */
+    public SinglePassInflater(int maxBuffersPerClass) {
+        if (maxBuffersPerClass < 0) {
+            throw new IllegalArgumentException("Invalid buffers count: [" + maxBuffersPerClass + "]");
+        }
+        this.maxBuffersPerClass = maxBuffersPerClass;
+        for (int i = MIN_CLASS_SHIFT; i <= MAX_CLASS_SHIFT; i++) {
+            classes[i] = new ArrayDeque<byte[]>();
+        }
+    }
+
+    /**
+     * Inflates specified compressed data, Inflater must be reset before the call
+     * if it was used before
+     *
+     * @param inf inflater
+     * @param comp compressed data
+     * @param off compressed data offset
+     * @param len compressed data length
+     * @param knownSize uncompressed size or UNKNOWN_SIZE
+     * @return output that should be returned with {@link #release(Output)} after use
+     * @throws DataFormatException on invalid or truncated compressed data
+     */
+    public Output inflate(Inflater inf, byte[] comp, int off, int len, long knownSize) throws DataFormatException {
+        long size = knownSize;
+        if (size < 0) {
+            // estimate is capped by the biggest size class, doubling fallback grows the buffer if needed
+            size = Math.min((long) (len * ratioEstimate * ESTIMATE_HEADROOM), 1L << MAX_CLASS_SHIFT);
+            estimatedCount += 1;
+        }
+        byte[] buf = take(Math.max(1, size));
+        inf.setInput(comp, off, len);
+        int count = 0;
+        boolean fallback = false;
+        for (;;) {
+            count += inf.inflate(buf, count, buf.length - count);
+            if (inf.finished()) {
+                break;
+            }
+            if (count == buf.length) {
+                if (buf.length > Integer.MAX_VALUE / 2) {
+                    throw new DataFormatException("Uncompressed data is too big, inflated: [" + count + "]");
+                }
+                byte[] bigger = take(buf.length * 2L);
+                System.arraycopy(buf, 0, bigger, 0, count);
+                give(buf);
+                buf = bigger;
+                fallback = true;
+            } else if (inf.needsInput() || inf.needsDictionary()) {
+                give(buf);
+                throw new DataFormatException("Truncated compressed data, inflated: [" + count + "]");
+            }
+        }
+        if (fallback) {
+            fallbackCount += 1;
+        } else {
+            hitCount += 1;
+        }
+        if (len > 0) {
+            double ratio = count / (double) len;
+            ratioEstimate = Math.max(ratio, ratioEstimate * RATIO_DECAY);
+        }
+        return new Output(buf, count);
+    }
+
+    /**
+     * Returns output buffer to the pool, output must not be used after this call
+     *
+     * @param output output returned from {@link #inflate(Inflater, byte[], int, int, long)}
+     */
+    public void release(Output output) {
+        give(output.buffer);
+    }
+
+    /**
+     * Reads uncompressed size (ISIZE) from the GZIP member trailer, ISIZE is stored
+     * modulo 2^32, so it is only a hint for the bigger data
+     *
+     * @param gzip GZIP data
+     * @param off member offset
+     * @param len member length including the trailer
+     * @return uncompressed size
+     */
+    public static long gzipSize(byte[] gzip, int off, int len) {
+        int pos = off + len - 4;
+        return (gzip[pos] & 0xffL) | (gzip[pos + 1] & 0xffL) << 8 |
+                (gzip[pos + 2] & 0xffL) << 16 | (gzip[pos + 3] & 0xffL) << 24;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount;
+    }
+
+    public long getEstimatedCount() {
+        return estimatedCount;
+    }
+
+    private byte[] take(long size) {
+        int shift = classShift(size);
+        if (shift > MAX_CLASS_SHIFT) {
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Output size is too big: [" + size + "]");
+            }
+            return new byte[(int) size];
+        }
+        byte[] pooled = classes[shift].pollFirst();
+        return null != pooled ? pooled : new byte[1 << shift];
+    }
+
+    private void give(byte[] buf) {
+        int shift = classShift(buf.length);
+        if (shift <= MAX_CLASS_SHIFT && buf.length == 1 << shift && classes[shift].size() < maxBuffersPerClass) {
+            classes[shift].addFirst(buf);
+        }
+    }
+
+    private static int classShift(long size) {
+        int shift = 64 - Long.numberOfLeadingZeros(size - 1);
+        return Math.max(MIN_CLASS_SHIFT, shift);
+    }
+
+    /**
+     * Inflated data, buffer may be longer than the data
+     */
+    public static class Output {
+        private final byte[] buffer;
+        private final int length;
+
+        Output(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        public byte[] getBuffer() {
+            return buffer;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
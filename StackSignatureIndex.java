@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Set of named stack signatures matched in a single pass over the stack frames.
+ *
+ * Signature is a chain of consecutive function names starting from the innermost
+ * frame, for example: malloc <- updatewindow <- inflate <- Java_java_util_zip_Inflater_inflateBytes .
+ * Function name ending with '*' matches any name with the specified prefix.
+ * Chain may start at any frame of the stack.
+ *
+ * Function names of all signatures are stored in a single byte trie, each trie node
+ * holds a bitmask of signature elements that it matches. Elements of all signatures are
+ * laid out in a single 64-bit word and are matched with a bit-parallel (shift-and) automaton,
+ * so per-frame matching cost does not depend on the number of signatures and no memory
+ * is allocated during matching.
+ *
+ * For each signature number of matching stacks and totals of leaked bytes and
+ * blocks reported for these stacks are collected.
+ */
+public class StackSignatureIndex {
+    private static final int MAX_ELEMENTS = 64;
+
+    private final TrieNode root = new TrieNode();
+    private final List<String> names = new ArrayList<String>();
+    private long[] signatureEndBits = new long[0];
+    private long startBits = 0;
+    private long endBits = 0;
+    private int elementsCount = 0;
+
+    // results
+    private long[] counts = new long[0];
+    private long[] bytes = new long[0];
+    private long[] blocks = new long[0];
+
+    // matching state
+    private long stackState = 0;
+    private long stackMatched = 0;
+    private TrieNode fnNode = null;
+    private long fnMask = 0;
+
+    /**
+     * Adds a signature to this index
+     *
+     * @param name signature name, used to get the results
+     * @param frames function names, starting from the innermost frame
+     */
+    public void add(String name, String... frames) {
+        if (0 == frames.length) {
+            throw new IllegalArgumentException("Empty signature specified: [" + name + "]");
+        }
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate signature name: [" + name + "]");
+        }
+        if (elementsCount + frames.length > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Too many frames in signatures," +
+                    " max allowed: [" + MAX_ELEMENTS + "], signature: [" + name + "]");
+        }
+        for (int i = 0; i < frames.length; i++) {
+            long bit = 1L << (elementsCount + i);
+            String fr = frames[i];
+            boolean prefix = fr.endsWith("*");
+            byte[] pattern = (prefix ? fr.substring(0, fr.length() - 1) : fr).getBytes(US_ASCII);
+            TrieNode node = root;
+            for (byte b : pattern) {
+                node = node.child(b);
+            }
+            if (prefix) {
+                node.prefixMask |= bit;
+            } else {
+                node.exactMask |= bit;
+            }
+        }
+        startBits |= 1L << elementsCount;
+        long end = 1L << (elementsCount + frames.length - 1);
+        endBits |= end;
+        signatureEndBits = Arrays.copyOf(signatureEndBits, signatureEndBits.length + 1);
+        signatureEndBits[signatureEndBits.length - 1] = end;
+        names.add(name);
+        elementsCount += frames.length;
+        counts = Arrays.copyOf(counts, names.size());
+        bytes = Arrays.copyOf(bytes, names.size());
+        blocks = Arrays.copyOf(blocks, names.size());
+    }
+
+    /**
+     * Returns names of all signatures in order they were added
+     *
+     * @return signature names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Returns number of stacks matching specified signature
+     *
+     * @param name signature name
+     * @return number of matching stacks
+     */
+    public long getCount(String name) {
+        return counts[indexOf(name)];
+    }
+
+    /**
+     * Returns total leaked bytes reported for stacks matching specified signature
+     *
+     * @param name signature name
+     * @return total leaked bytes
+     */
+    public long getBytes(String name) {
+        return bytes[indexOf(name)];
+    }
+
+    /**
+     * Returns total leaked blocks reported for stacks matching specified signature
+     *
+     * @param name signature name
+     * @return total leaked blocks
+     */
+    public long getBlocks(String name) {
+        return blocks[indexOf(name)];
+    }
+
+    /**
+     * Starts matching a new stack
+     */
+    void startStack() {
+        stackState = 0;
+        stackMatched = 0;
+    }
+
+    /**
+     * Starts matching a function name of the next frame
+     */
+    void startFn() {
+        fnNode = root;
+        fnMask = root.prefixMask;
+    }
+
+    /**
+     * Matches the next byte of the function name
+     *
+     * @param b next byte of the function name
+     */
+    void updateFn(byte b) {
+        if (null == fnNode) {
+            return;
+        }
+        fnNode = fnNode.get(b);
+        if (null != fnNode) {
+            fnMask |= fnNode.prefixMask;
+        }
+    }
+
+    /**
+     * Finishes matching the function name and advances the automaton to the next frame
+     */
+    void endFn() {
+        long mask = null != fnNode ? fnMask | fnNode.exactMask : fnMask;
+        stackState = ((stackState << 1) | startBits) & mask;
+        stackMatched |= stackState & endBits;
+    }
+
+    /**
+     * Finishes matching the stack, updating the results for matched signatures
+     *
+     * @param leakedBytes bytes reported for this stack
+     * @param leakedBlocks blocks reported for this stack
+     */
+    void endStack(long leakedBytes, long leakedBlocks) {
+        if (0 == stackMatched) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (0 != (stackMatched & signatureEndBits[i])) {
+                counts[i] += 1;
+                bytes[i] += leakedBytes;
+                blocks[i] += leakedBlocks;
+            }
+        }
+    }
+
+    private int indexOf(String name) {
+        int idx = names.indexOf(name);
+        if (-1 == idx) {
+            throw new IllegalArgumentException("Unknown signature name: [" + name + "]");
+        }
+        return idx;
+    }
+
+    /**
+     * Byte trie node, only ASCII names are supported
+     */
+    private static class TrieNode {
+        private TrieNode[] children = null;
+        private long exactMask = 0;
+        private long prefixMask = 0;
+
+        TrieNode get(byte b) {
+            return null != children && b >= 0 ? children[b] : null;
+        }
+
+        TrieNode child(byte b) {
+            if (b < 0) {
+                throw new IllegalArgumentException("Non-ASCII function name");
+            }
+            if (null == children) {
+                children = new TrieNode[128];
+            }
+            if (null == children[b]) {
+                children[b] = new TrieNode();
+            }
+            return children[b];
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Deterministic synthetic corpus of compressed payloads, used to measure how
+ * inflating behaves depending on the data size.
+ *
+ * Payloads of three kinds are generated: 'random' (incompressible), 'compressible'
+ * (log-like text) and 'classfile' (class-file-like structures with constant pool
+ * strings and bytecode). Sizes grow geometrically from the minimal to the maximal one,
+ * each payload is compressed with levels 1, 6 and 9 and written in 'raw' DEFLATE,
+ * 'zlib' and 'gzip' formats. Uncompressed data depends only on the kind and the size,
+ * it is generated in chunks and never kept in memory as a whole.
+ *
+ * Metadata is written to "corpus.csv" in the corpus directory:
+ *
+ *     file,kind,uncompressed_len,compressed_len,level,wrap,crc32
+ *
+ * Usage: java SyntheticCorpus path/to/dir [min_size=256] [max_size=16777216] [factor=4]
+ */
+public class SyntheticCorpus {
+    public static final String METADATA_FILE = "corpus.csv";
+    public static final String WRAP_RAW = "raw";
+    public static final String WRAP_ZLIB = "zlib";
+    public static final String WRAP_GZIP = "gzip";
+
+    private static final String[] KINDS = {"random", "compressible", "classfile"};
+    private static final int[] LEVELS = {Deflater.BEST_SPEED, 6, Deflater.BEST_COMPRESSION};
+    private static final String[] WRAPS = {WRAP_RAW, WRAP_ZLIB, WRAP_GZIP};
+    private static final String METADATA_HEADER = "file,kind,uncompressed_len,compressed_len,level,wrap,crc32";
+    private static final int GZIP_HEADER_LEN = 10;
+    private static final int GZIP_TRAILER_LEN = 8;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * Generates the corpus
+     *
+     * @param args corpus directory, optional minimal size (default 256), maximal size
+     *             (default 16 MB) and size growth factor (default 4)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            throw new RuntimeException("ERROR: corpus directory not specified, usage:" +
+                    " java SyntheticCorpus path/to/dir [min_size=256] [max_size=16777216] [factor=4]");
+        }
+        File dir = new File(args[0]);
+        long minSize = args.length > 1 ? Long.parseLong(args[1]) : 256;
+        long maxSize = args.length > 2 ? Long.parseLong(args[2]) : 16 << 20;
+        int factor = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        List<Entry> entries = generate(dir, minSize, maxSize, factor);
+        System.out.println("INFO: corpus generated, directory: [" + dir.getAbsolutePath() + "]," +
+                " entries: [" + entries.size() + "]");
+    }
+
+    /**
+     * Generates the corpus into a specified directory overwriting existing files
+     *
+     * @param dir corpus directory, created if not exists
+     * @param minSize minimal uncompressed size
+     * @param maxSize maximal uncompressed size, inclusive
+     * @param factor size growth factor, must be greater than 1
+     * @return metadata of the generated entries
+     */
+    public static List<Entry> generate(File dir, long minSize, long maxSize, int factor) throws IOException {
+        if (!(dir.isDirectory() || dir.mkdirs())) {
+            throw new IOException("Cannot create corpus directory: [" + dir.getAbsolutePath() + "]");
+        }
+        if (factor < 2 || minSize < 1 || maxSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Invalid corpus sizes, min: [" + minSize + "]," +
+                    " max: [" + maxSize + "], factor: [" + factor + "]");
+        }
+        List<Entry> entries = new ArrayList<Entry>();
+        for (long size = minSize; size <= maxSize; size *= factor) {
+            for (int kindIdx = 0; kindIdx < KINDS.length; kindIdx++) {
+                for (int level : LEVELS) {
+                    for (String wrap : WRAPS) {
+                        String name = KINDS[kindIdx] + "-" + size + "-" + level + "." + wrap;
+                        Source source = createSource(kindIdx, size);
+                        entries.add(write(new File(dir, name), KINDS[kindIdx], source, size, level, wrap));
+                    }
+                }
+            }
+        }
+        writeMetadata(new File(dir, METADATA_FILE), entries);
+        return entries;
+    }
+
+    /**
+     * Reads corpus metadata
+     *
+     * @param dir corpus directory
+     * @return entries in the order they were generated (by size ascending)
+     */
+    public static List<Entry> read(File dir) throws IOException {
+        List<Entry> res = new ArrayList<Entry>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(dir, METADATA_FILE)), US_ASCII));
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.isEmpty() || METADATA_HEADER.equals(line)) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (7 != parts.length) {
+                    throw new IOException("Invalid corpus metadata line: [" + line + "]");
+                }
+                res.add(new Entry(new File(dir, parts[0]), parts[1], Long.parseLong(parts[2]),
+                        Long.parseLong(parts[3]), Integer.parseInt(parts[4]), parts[5], Long.parseLong(parts[6])));
+            }
+        } finally {
+            if (null != reader) {
+                reader.close();
+            }
+        }
+        return Collections.unmodifiableList(res);
+    }
+
+    private static Entry write(File file, String kind, Source source, long size, int level, String wrap)
+            throws IOException {
+        Deflater def = new Deflater(level, !WRAP_ZLIB.equals(wrap));
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, size)];
+        byte[] buf = new byte[CHUNK_SIZE];
+        OutputStream os = null;
+        long written = 0;
+        try {
+            os = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+            if (WRAP_GZIP.equals(wrap)) {
+                // magic, CM = deflate, no flags, no mtime, no XFL, OS = unix
+                os.write(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 3});
+                written += GZIP_HEADER_LEN;
+            }
+            for (long pos = 0; pos < size; pos += chunk.length) {
+                int len = (int) Math.min(chunk.length, size - pos);
+                source.fill(chunk, len);
+                crc.update(chunk, 0, len);
+                def.setInput(chunk, 0, len);
+                while (!def.needsInput()) {
+                    int defRes = def.deflate(buf, 0, buf.length);
+                    os.write(buf, 0, defRes);
+                    written += defRes;
+                }
+            }
+            def.finish();
+            while (!def.finished()) {
+                int defRes = def.deflate(buf, 0, buf.length);
+                os.write(buf, 0, defRes);
+                written += defRes;
+            }
+            if (WRAP_GZIP.equals(wrap)) {
+                // CRC-32 and ISIZE, little-endian
+                writeIntLE(os, crc.getValue());
+                writeIntLE(os, size);
+                written += GZIP_TRAILER_LEN;
+            }
+        } finally {
+            def.end();
+            if (null != os) {
+                os.close();
+            }
+        }
+        return new Entry(file, kind, size, written, level, wrap, crc.getValue());
+    }
+
+    private static void writeIntLE(OutputStream os, long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            os.write((int) (value >>> (i * 8)));
+        }
+    }
+
+    private static void writeMetadata(File file, List<Entry> entries) throws IOException {
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), US_ASCII));
+            writer.write(METADATA_HEADER);
+            writer.write('\n');
+            for (Entry en : entries) {
+                writer.write(en.getFile().getName() + "," + en.getKind() + "," + en.getUncompressedLength() + "," +
+                        en.getCompressedLength() + "," + en.getLevel() + "," + en.getWrap() + "," + en.getCrc32());
+                writer.write('\n');
+            }
+        } finally {
+            if (null != writer) {
+                writer.close();
+            }
+        }
+    }
+
+    private static Source createSource(int kindIdx, long size) {
+        // data depends only on the kind and the size
+        Random random = new Random(kindIdx * 1000003L + size);
+        switch (kindIdx) {
+            case 0:
+                return new RandomSource(random);
+            case 1:
+                return new TextSource(random);
+            default:
+                return new ClassFileSource(random);
+        }
+    }
+
+    /**
+     * Corpus entry metadata
+     */
+    public static class Entry {
+        private final File file;
+        private final String kind;
+        private final long uncompressedLength;
+        private final long compressedLength;
+        private final int level;
+        private final String wrap;
+        private final long crc32;
+
+        Entry(File file, String kind, long uncompressedLength, long compressedLength, int level, String wrap, long crc32) {
+            this.file = file;
+            this.kind = kind;
+            this.uncompressedLength = uncompressedLength;
+            this.compressedLength = compressedLength;
+            this.level = level;
+            this.wrap = wrap;
+            this.crc32 = crc32;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public long getUncompressedLength() {
+            return uncompressedLength;
+        }
+
+        /**
+         * Returns length of the file including format header and trailer
+         *
+         * @return file length
+         */
+        public long getCompressedLength() {
+            return compressedLength;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public String getWrap() {
+            return wrap;
+        }
+
+        public long getCrc32() {
+            return crc32;
+        }
+
+        /**
+         * Returns whether Inflater should be created with "nowrap" option
+         * to inflate the data located with {@link #getDataOffset()}
+         *
+         * @return true for 'raw' and 'gzip' formats
+         */
+        public boolean isNowrap() {
+            return !WRAP_ZLIB.equals(wrap);
+        }
+
+        /**
+         * Returns offset of the data to inflate, GZIP header is skipped
+         *
+         * @return data offset
+         */
+        public int getDataOffset() {
+            return WRAP_GZIP.equals(wrap) ? GZIP_HEADER_LEN : 0;
+        }
+
+        /**
+         * Returns length of the data to inflate, GZIP header and trailer are skipped
+         *
+         * @return data length
+         */
+        public long getDataLength() {
+            return WRAP_GZIP.equals(wrap) ? compressedLength - GZIP_HEADER_LEN - GZIP_TRAILER_LEN : compressedLength;
+        }
+    }
+
+    /**
+     * Generates uncompressed data in blocks
+     */
+    private abstract static class Source {
+        final Random random;
+        private byte[] block = new byte[0];
+        private int blockPos = 0;
+
+        Source(Random random) {
+            this.random = random;
+        }
+
+        abstract byte[] nextBlock();
+
+        void fill(byte[] buf, int len) {
+            int pos = 0;
+            while (pos < len) {
+                if (blockPos == block.length) {
+                    block = nextBlock();
+                    blockPos = 0;
+                }
+                int count = Math.min(len - pos, block.length - blockPos);
+                System.arraycopy(block, blockPos, buf, pos, count);
+                pos += count;
+                blockPos += count;
+            }
+        }
+    }
+
+    /**
+     * Incompressible random bytes
+     */
+    private static class RandomSource extends Source {
+        private final byte[] block = new byte[4096];
+
+        RandomSource(Random random) {
+            super(random);
+        }
+
+        @Override
+        byte[] nextBlock() {
+            random.nextBytes(block);
+            return block;
+        }
+    }
+
+    /**
+     * Highly compressible log-like text
+     */
+    private static class TextSource extends Source {
+        private static final String[] LEVELS = {"INFO", "INFO", "INFO", "DEBUG", "WARN"};
+        private static final String[] MESSAGES = {"request completed", "cache hit", "cache miss",
+                "connection opened", "connection closed", "entry inflated"};
+
+        TextSource(Random random) {
+            super(random);
+        }
+
+        @Override
+        byte[] nextBlock() {
+            StringBuilder sb = new StringBuilder(4096);
+            while (sb.length() < 4000) {
+                sb.append("2026-10-15 12:").append(10 + random.nextInt(50)).append(':').append(10 + random.nextInt(50))
+                        .append(' ').append(LEVELS[random.nextInt(LEVELS.length)])
+                        .append(" [worker-").append(random.nextInt(8)).append("] ")
+                        .append(MESSAGES[random.nextInt(MESSAGES.length)])
+                        .append(" in ").append(random.nextInt(100)).append(" ms\n");
+            }
+            return sb.toString().getBytes(US_ASCII);
+        }
+    }
+
+    /**
+     * Class-file-like structures: header, constant pool with identifiers and descriptors,
+     * method bodies with bytecode from a set of frequent opcodes
+     */
+    private static class ClassFileSource extends Source {
+        private static final String[] PACKAGES = {"java/lang/", "java/util/", "java/io/",
+                "com/sun/org/apache/xerces/internal/impl/xs/", "org/w3c/dom/"};
+        private static final String[] NAMES = {"String", "Object", "Element", "Node", "Handler", "Grammar",
+                "Document", "List", "Map", "Reader", "Symbol", "Attribute", "Schema", "Namespace"};
+        private static final String[] PREFIXES = {"get", "set", "is", "create", "find", "resolve", "traverse", "<init>"};
+        private static final String[] DESCRIPTORS = {"()V", "()Ljava/lang/String;", "(Ljava/lang/String;)V",
+                "(I)Z", "(Lorg/w3c/dom/Element;Ljava/lang/Object;)V", "()I", "(Ljava/lang/Object;)Z"};
+        // aload_0, aload_1, getfield, invokevirtual, invokespecial, ldc, ifeq, return, areturn, dup, new, iload_1
+        private static final int[] OPCODES = {0x2a, 0x2a, 0x2b, 0xb4, 0xb6, 0xb6, 0xb7, 0x12, 0x99, 0xb1, 0xb0,
+                0x59, 0xbb, 0x1b};
+
+        ClassFileSource(Random random) {
+            super(random);
+        }
+
+        @Override
+        byte[] nextBlock() {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(8192);
+            DataOutputStream out = new DataOutputStream(baos);
+            try {
+                out.writeInt(0xcafebabe);
+                out.writeShort(0);
+                out.writeShort(51);
+                int cpCount = 64 + random.nextInt(128);
+                out.writeShort(cpCount);
+                for (int i = 1; i < cpCount; i++) {
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            out.writeByte(1);
+                            out.writeUTF(PACKAGES[random.nextInt(PACKAGES.length)] + NAMES[random.nextInt(NAMES.length)]);
+                            break;
+                        case 1:
+                            out.writeByte(1);
+                            String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+                            out.writeUTF("<init>".equals(prefix) ? prefix : prefix + NAMES[random.nextInt(NAMES.length)]);
+                            break;
+                        case 2:
+                            out.writeByte(1);
+                            out.writeUTF(DESCRIPTORS[random.nextInt(DESCRIPTORS.length)]);
+                            break;
+                        default:
+                            out.writeByte(10);
+                            out.writeShort(1 + random.nextInt(cpCount - 1));
+                            out.writeShort(1 + random.nextInt(cpCount - 1));
+                    }
+                }
+                int methods = 4 + random.nextInt(16);
+                out.writeShort(methods);
+                for (int i = 0; i < methods; i++) {
+                    out.writeShort(1);
+                    out.writeShort(1 + random.nextInt(cpCount - 1));
+                    out.writeShort(1 + random.nextInt(cpCount - 1));
+                    int codeLen = 8 + random.nextInt(120);
+                    out.writeInt(codeLen);
+                    for (int j = 0; j < codeLen; j++) {
+                        int op = OPCODES[random.nextInt(OPCODES.length)];
+                        out.writeByte(op);
+                        if (0xb4 == op || 0xb6 == op || 0xb7 == op || 0xbb == op || 0x99 == op) {
+                            out.writeShort(1 + random.nextInt(cpCount - 1));
+                        } else if (0x12 == op) {
+                            out.writeByte(1 + random.nextInt(cpCount - 1));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return baos.toByteArray();
+        }
+    }
+}
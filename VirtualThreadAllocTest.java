@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * @test
+ * @bug 8133206
+ * @requires (os.family == "linux") & (jdk.version.major >= 21)
+ * @summary Reports throughput, carrier pinning and "updatewindow" allocations when
+ *          thousands of virtual threads inflate small zlib-wrapped slices of XSDHandler
+ *          class fed in two halves (like "Content-Encoding: deflate" request bodies),
+ *          with a fresh Inflater for each request, with Inflaters from InflaterPool
+ *          and with a set of shared Inflaters (as many as carrier threads, chosen by
+ *          virtual thread index) used under their monitors.
+ *
+ *          Runs InflaterAllocWorker in "vthreads-fresh", "vthreads-pooled" and
+ *          "vthreads-striped" modes with malloc interposer library, memcheck is not used
+ *          as it serializes all threads. "smallbuf" mode is used to check that
+ *          allocations counting works correctly. Allocations are reported by the worker
+ *          itself as a difference of interposer counters around the virtual threads run,
+ *          worker inflates the input ZIP entry before that and it is not counted.
+ *
+ *          Results are only reported, test fails only if the worker fails
+ *          or 'smallbuf' allocations were not detected.
+ *
+ * @compile InflaterAllocWorker.java jdk21/VirtualThreadInflater.java
+ * @build InflaterAllocTest InflaterPool DeflaterAllocWorker ZipCentralDirectory PreloadCounters MemcheckXmlScanner StackSignatureIndex WorkerResultCache
+ * @run main/timeout=1200 VirtualThreadAllocTest parallel
+ */
+public class VirtualThreadAllocTest {
+    private static final String WORKER = "InflaterAllocWorker";
+    private static final String[] INFLATERS = {"fresh", "pooled", "striped"};
+    private static final String ALLOCATIONS_PREFIX = "INFO: updatewindow allocations: [";
+
+    /**
+     * Intented to be run with jtreg
+     *
+     * @param args optional arguments: 'parallel' to run all workers at once
+     */
+    public static void main(String[] args) throws Exception {
+        boolean parallel = Arrays.asList(args).contains("parallel");
+        InflaterAllocTest.Backend backend = InflaterAllocTest.Backend.PRELOAD;
+        List<String> modes = new ArrayList<String>();
+        modes.add("smallbuf");
+        for (String inf : INFLATERS) {
+            modes.add("vthreads-" + inf);
+        }
+        InflaterAllocTest.buildPreloadLibrary();
+        if (parallel) {
+            System.out.println("Starting workers in " + modes + " modes in parallel");
+            InflaterAllocTest.runWorkersParallel(backend, WORKER, modes);
+        }
+
+        Map<String, Long> leaksCounts = new LinkedHashMap<String, Long>();
+        for (String mode : modes) {
+            File out = backend.outFile(WORKER, mode);
+            if (!parallel) {
+                System.out.println("Starting worker in '" + mode + "' mode");
+                InflaterAllocTest.runWorker(backend, WORKER, mode, out);
+            }
+            leaksCounts.put(mode, InflaterAllocTest.countLeaks(backend, out));
+        }
+        if (0 == leaksCounts.get("smallbuf")) {
+            throw new RuntimeException("Test failed," +
+                    " 'smallbuf' mode leaks were not detected, check: [" + backend.outFile(WORKER, "smallbuf") + "],");
+        }
+
+        System.out.println("Virtual threads 'updatewindow' allocations:");
+        for (String mode : modes.subList(1, modes.size())) {
+            List<String> info = readWorkerInfo(new File(WORKER + "." + mode + ".out"));
+            System.out.println(String.format("%-24s allocations: [%d]", mode, parseAllocations(mode, info)));
+            for (String line : info) {
+                System.out.println("    " + line);
+            }
+        }
+
+        System.out.println("Test passed");
+    }
+
+    /**
+     * Reads throughput, pinning and allocations lines reported by the last run of the worker
+     *
+     * @param workerOutFile worker's output file, output of multiple runs may be appended there
+     * @return info lines
+     */
+    private static List<String> readWorkerInfo(File workerOutFile) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(workerOutFile));
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith("INFO: Running in mode")) {
+                    lines.clear();
+                } else if (line.startsWith("INFO: virtual threads") || line.startsWith("INFO: carrier time") ||
+                        line.startsWith(ALLOCATIONS_PREFIX)) {
+                    lines.add(line);
+                }
+            }
+        } finally {
+            if (null != reader) {
+                reader.close();
+            }
+        }
+        return lines;
+    }
+
+    private static long parseAllocations(String mode, List<String> info) {
+        for (String line : info) {
+            if (line.startsWith(ALLOCATIONS_PREFIX)) {
+                int end = line.indexOf(']', ALLOCATIONS_PREFIX.length());
+                return Long.parseLong(line.substring(ALLOCATIONS_PREFIX.length(), end));
+            }
+        }
+        throw new RuntimeException("Test failed, allocations were not reported by the worker in '" + mode + "' mode");
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Persistent cache of worker results keyed by a hash of the files
+ * the results depend on (JDK binaries, zlib, worker classes and input data).
+ *
+ * Results for each key are stored in a separate "[key].properties" file
+ * in the cache directory as 'mode=leaks' entries. Updates are written
+ * into a temporary file that is renamed over the cache file, so concurrent
+ * test runs may lose an entry, but never read a partially written file.
+ */
+public class WorkerResultCache {
+    private final File file;
+    private final Properties results = new Properties();
+
+    /**
+     * Constructor, loads existing results for the specified key
+     *
+     * @param dir cache directory, created if not exists
+     * @param key cache key, see {@link #hashFiles(String, List)}
+     */
+    public WorkerResultCache(File dir, String key) throws IOException {
+        if (!(dir.isDirectory() || dir.mkdirs())) {
+            throw new IOException("Cannot create cache directory: [" + dir.getAbsolutePath() + "]");
+        }
+        this.file = new File(dir, key + ".properties");
+        if (file.exists()) {
+            load(file, results);
+        }
+    }
+
+    /**
+     * Returns cached leaks count for the specified mode
+     *
+     * @param mode worker mode
+     * @return cached leaks count, null if not cached
+     */
+    public synchronized Long get(String mode) {
+        String value = results.getProperty(mode);
+        return null != value ? Long.valueOf(value) : null;
+    }
+
+    /**
+     * Stores leaks count for the specified mode
+     *
+     * @param mode worker mode
+     * @param leaks leaks count
+     */
+    public synchronized void put(String mode, long leaks) throws IOException {
+        // merge entries written by concurrent runs
+        if (file.exists()) {
+            load(file, results);
+        }
+        results.setProperty(mode, String.valueOf(leaks));
+        File tmp = new File(file.getPath() + "." + System.nanoTime() + ".tmp");
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(tmp);
+            results.store(os, null);
+        } finally {
+            if (null != os) {
+                os.close();
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot write cache file: [" + file.getAbsolutePath() + "]");
+        }
+    }
+
+    /**
+     * Returns cache file for this key
+     *
+     * @return cache file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Computes SHA-256 hash of the specified salt string and contents of the specified files,
+     * file paths are hashed too, missing files are hashed as paths only
+     *
+     * @param salt string to hash before the files, e.g. backend name
+     * @param files files to hash
+     * @return hash as a lowercase hex string
+     */
+    public static String hashFiles(String salt, List<File> files) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update(salt.getBytes("UTF-8"));
+        byte[] buf = new byte[1 << 16];
+        for (File fi : files) {
+            md.update((byte) 0);
+            md.update(fi.getPath().getBytes("UTF-8"));
+            if (!fi.isFile()) {
+                continue;
+            }
+            md.update((byte) 1);
+            InputStream is = null;
+            try {
+                is = new FileInputStream(fi);
+                int read;
+                while (-1 != (read = is.read(buf))) {
+                    md.update(buf, 0, read);
+                }
+            } finally {
+                if (null != is) {
+                    is.close();
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static void load(File file, Properties props) throws IOException {
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            props.load(is);
+        } finally {
+            if (null != is) {
+                is.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Minimal ZIP central directory reader, used to locate compressed entries data
+ * without java.util.zip.ZipFile (that inflates entries through its own buffers).
+ *
+ * ZIP64 archives are not supported.
+ */
+public class ZipCentralDirectory {
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int EOCD_LEN = 22;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int CEN_LEN = 46;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int LOC_LEN = 30;
+    private static final int MAX_COMMENT_LEN = 0xffff;
+
+    private ZipCentralDirectory() {
+    }
+
+    /**
+     * Reads entries from the central directory of a specified ZIP file, local headers
+     * are also read to find out the offsets of entries data
+     *
+     * @param zipFile ZIP file
+     * @return entries in central directory order
+     */
+    public static List<Entry> read(File zipFile) throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(zipFile, "r");
+            byte[] eocd = findEndOfCentralDirectory(raf, zipFile);
+            int count = u16(eocd, 10);
+            long cenSize = u32(eocd, 12);
+            long cenOffset = u32(eocd, 16);
+            if (0xffff == count || 0xffffffffL == cenSize || 0xffffffffL == cenOffset) {
+                throw new IOException("ZIP64 archives are not supported, file: [" + zipFile.getAbsolutePath() + "]");
+            }
+            byte[] cen = new byte[(int) cenSize];
+            raf.seek(cenOffset);
+            raf.readFully(cen);
+            List<Entry> entries = new ArrayList<Entry>(count);
+            byte[] loc = new byte[LOC_LEN];
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                if (pos + CEN_LEN > cen.length || CEN_SIG != (int) u32(cen, pos)) {
+                    throw new IOException("Invalid central directory header, index: [" + i + "]," +
+                            " file: [" + zipFile.getAbsolutePath() + "]");
+                }
+                int method = u16(cen, pos + 10);
+                long compressedSize = u32(cen, pos + 20);
+                long uncompressedSize = u32(cen, pos + 24);
+                int nameLen = u16(cen, pos + 28);
+                int extraLen = u16(cen, pos + 30);
+                int commentLen = u16(cen, pos + 32);
+                long locOffset = u32(cen, pos + 42);
+                String name = new String(cen, pos + CEN_LEN, nameLen, UTF_8);
+                raf.seek(locOffset);
+                raf.readFully(loc);
+                if (LOC_SIG != (int) u32(loc, 0)) {
+                    throw new IOException("Invalid local header, entry: [" + name + "]," +
+                            " file: [" + zipFile.getAbsolutePath() + "]");
+                }
+                long dataOffset = locOffset + LOC_LEN + u16(loc, 26) + u16(loc, 28);
+                entries.add(new Entry(name, method, compressedSize, uncompressedSize, dataOffset));
+                pos += CEN_LEN + nameLen + extraLen + commentLen;
+            }
+            return Collections.unmodifiableList(entries);
+        } finally {
+            if (null != raf) {
+                raf.close();
+            }
+        }
+    }
+
+    private static byte[] findEndOfCentralDirectory(RandomAccessFile raf, File zipFile) throws IOException {
+        long len = raf.length();
+        int tailLen = (int) Math.min(len, EOCD_LEN + MAX_COMMENT_LEN);
+        byte[] tail = new byte[tailLen];
+        raf.seek(len - tailLen);
+        raf.readFully(tail);
+        for (int i = tailLen - EOCD_LEN; i >= 0; i--) {
+            if (EOCD_SIG == (int) u32(tail, i)) {
+                byte[] eocd = new byte[EOCD_LEN];
+                System.arraycopy(tail, i, eocd, 0, EOCD_LEN);
+                return eocd;
+            }
+        }
+        throw new IOException("End of central directory not found, file: [" + zipFile.getAbsolutePath() + "]");
+    }
+
+    private static int u16(byte[] buf, int off) {
+        return (buf[off] & 0xff) | ((buf[off + 1] & 0xff) << 8);
+    }
+
+    private static long u32(byte[] buf, int off) {
+        return (u16(buf, off) | ((long) u16(buf, off + 2) << 16)) & 0xffffffffL;
+    }
+
+    /**
+     * ZIP entry metadata from the central directory
+     */
+    public static class Entry {
+        private final String name;
+        private final int method;
+        private final long compressedSize;
+        private final long uncompressedSize;
+        private final long dataOffset;
+
+        Entry(String name, int method, long compressedSize, long uncompressedSize, long dataOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.uncompressedSize = uncompressedSize;
+            this.dataOffset = dataOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getUncompressedSize() {
+            return uncompressedSize;
+        }
+
+        /**
+         * Returns offset of the compressed data in ZIP file
+         *
+         * @return offset of the compressed data
+         */
+        public long getDataOffset() {
+            return dataOffset;
+        }
+    }
+}
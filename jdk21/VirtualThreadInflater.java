@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2026, Red Hat, Inc. and/or its affiliates.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Many small concurrent inflates on virtual threads, requires jdk21 or later,
+ * run by InflaterAllocWorker in 'vthreads-fresh', 'vthreads-pooled' and 'vthreads-striped' modes.
+ *
+ * Uncompressed XSDHandler class is cut into slices that are deflated separately
+ * in zlib format (as HTTP "Content-Encoding: deflate" request bodies). Each virtual thread
+ * handles a number of requests, for each request compressed slice is fed to the Inflater
+ * in two halves with a 1 ms sleep between them (waiting for the rest of the body), output
+ * is inflated into 8 KB buffer. Inflaters used:
+ *
+ *  - fresh: new Inflater for each request, ended after the request
+ *  - pooled: borrowed from InflaterPool for the request, pool is not closed
+ *  - striped: fixed set of shared Inflaters (as many as carrier threads), chosen by
+ *    the virtual thread index, not bound to the actual carrier thread. Inflater is held under
+ *    its monitor for the whole request, so the virtual thread is pinned to its carrier while
+ *    sleeping and other virtual threads block their carriers waiting for the monitor
+ *
+ * Reports throughput, time carriers spent in Inflater#inflate calls (virtual thread
+ * cannot unmount from the carrier during the JNI "inflateBytes" call), "jdk.VirtualThreadPinned"
+ * JFR events and (when run with the malloc interposer library) 'updatewindow' allocations.
+ */
+public class VirtualThreadInflater {
+    private static final int BUFFER_SIZE = 8192;
+    private static final long BODY_WAIT_MILLIS = 1;
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private VirtualThreadInflater() {
+    }
+
+    /**
+     * Runs the requests
+     *
+     * @param zipFile XSDHandler.class.zip file
+     * @param mode 'fresh', 'pooled' or 'striped'
+     * @param args optional arguments: number of virtual threads (default 10000),
+     *             requests per thread (default 4) and slice size (default 16384)
+     */
+    public static void run(File zipFile, String mode, String[] args) throws Exception {
+        if (!("fresh".equals(mode) || "pooled".equals(mode) || "striped".equals(mode))) {
+            throw new RuntimeException("ERROR: invalid virtual threads mode: [" + mode + "]," +
+                    " expected 'fresh', 'pooled' or 'striped'");
+        }
+        int threadsCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int sliceSize = args.length > 2 ? Integer.parseInt(args[2]) : 16384;
+        int carriers = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        byte[] uncomp = DeflaterAllocWorker.readUncompressed(zipFile);
+        List<byte[]> slices = deflateSlices(uncomp, sliceSize);
+
+        PreloadCounters counters = PreloadCounters.open();
+        InflaterPool pool = "pooled".equals(mode) ? new InflaterPool(false, threadsCount, false) : null;
+        Inflater[] stripedInflaters = new Inflater["striped".equals(mode) ? carriers : 0];
+        for (int i = 0; i < stripedInflaters.length; i++) {
+            stripedInflaters[i] = new Inflater(false);
+        }
+        Recording recording = new Recording();
+        recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO);
+        recording.start();
+
+        Requests reqs = new Requests(mode, slices, pool, stripedInflaters);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>(threadsCount);
+        for (int i = 0; i < threadsCount; i++) {
+            final int threadIdx = i;
+            threads.add(Thread.ofVirtual().name("vinflater-" + i).start(() -> {
+                try {
+                    byte[] buf = new byte[BUFFER_SIZE];
+                    startLatch.await();
+                    for (int j = 0; j < requests; j++) {
+                        reqs.handle(threadIdx, threadIdx + j, buf);
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            }));
+        }
+        long mallocsBefore = null != counters ? counters.mallocs() : 0;
+        long bytesBefore = null != counters ? counters.bytes() : 0;
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread th : threads) {
+            th.join();
+        }
+        long nanos = System.nanoTime() - start;
+        recording.stop();
+        if (null != error.get()) {
+            throw new RuntimeException("ERROR: virtual threads inflate failed", error.get());
+        }
+
+        long pinnedCount = 0;
+        long pinnedNanos = 0;
+        Path jfr = Files.createTempFile("VirtualThreadInflater", ".jfr");
+        try {
+            recording.dump(jfr);
+            for (RecordedEvent ev : RecordingFile.readAllEvents(jfr)) {
+                if (PINNED_EVENT.equals(ev.getEventType().getName())) {
+                    pinnedCount += 1;
+                    pinnedNanos += ev.getDuration().toNanos();
+                }
+            }
+        } finally {
+            recording.close();
+            Files.delete(jfr);
+        }
+
+        long total = (long) threadsCount * requests;
+        long created = "fresh".equals(mode) ? total : null != pool ? pool.getCreatedCount() : stripedInflaters.length;
+        double mb = reqs.uncompTotal.sum() / (1024d * 1024d);
+        System.out.println("INFO: virtual threads inflate exited successfully, inflater: [" + mode + "]," +
+                " threads: [" + threadsCount + "], requests: [" + total + "], carriers: [" + carriers + "]," +
+                " throughput: [" + String.format("%.1f", mb * 1e9 / nanos) + "] MB/s," +
+                " requests/s: [" + String.format("%.0f", total * 1e9 / nanos) + "]," +
+                " inflaters created: [" + created + "]");
+        System.out.println("INFO: carrier time in inflateBytes: [" + reqs.inflateNanos.sum() / 1000000 + "] ms" +
+                " (" + String.format("%.1f", reqs.inflateNanos.sum() * 100d / nanos / carriers) + "% of carriers)," +
+                " pinned: [" + pinnedCount + "] events, [" + pinnedNanos / 1000000 + "] ms");
+        if (null != counters) {
+            System.out.println("INFO: updatewindow allocations: [" + (counters.mallocs() - mallocsBefore) + "]," +
+                    " bytes: [" + (counters.bytes() - bytesBefore) + "]");
+        }
+    }
+
+    private static List<byte[]> deflateSlices(byte[] uncomp, int sliceSize) {
+        List<byte[]> res = new ArrayList<byte[]>();
+        Deflater def = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+        byte[] buf = new byte[DeflaterAllocWorker.deflateBound(sliceSize)];
+        try {
+            for (int pos = 0; pos < uncomp.length; pos += sliceSize) {
+                def.reset();
+                def.setInput(uncomp, pos, Math.min(sliceSize, uncomp.length - pos));
+                def.finish();
+                int len = 0;
+                while (!def.finished()) {
+                    len += def.deflate(buf, len, buf.length - len);
+                }
+                byte[] slice = new byte[len + 4];
+                System.arraycopy(buf, 0, slice, 0, len);
+                writeInt(slice, len, Math.min(sliceSize, uncomp.length - pos));
+                res.add(slice);
+            }
+        } finally {
+            def.end();
+        }
+        return res;
+    }
+
+    private static void writeInt(byte[] buf, int off, int value) {
+        buf[off] = (byte) (value >>> 24);
+        buf[off + 1] = (byte) (value >>> 16);
+        buf[off + 2] = (byte) (value >>> 8);
+        buf[off + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buf, int off) {
+        return ((buf[off] & 0xff) << 24) | ((buf[off + 1] & 0xff) << 16) |
+                ((buf[off + 2] & 0xff) << 8) | (buf[off + 3] & 0xff);
+    }
+
+    /**
+     * Request handling shared by all virtual threads, slices have
+     * the expected uncompressed length appended as 4 big-endian bytes
+     */
+    private static class Requests {
+        private final String mode;
+        private final List<byte[]> slices;
+        private final InflaterPool pool;
+        private final Inflater[] stripedInflaters;
+        private final LongAdder uncompTotal = new LongAdder();
+        private final LongAdder inflateNanos = new LongAdder();
+
+        Requests(String mode, List<byte[]> slices, InflaterPool pool, Inflater[] stripedInflaters) {
+            this.mode = mode;
+            this.slices = slices;
+            this.pool = pool;
+            this.stripedInflaters = stripedInflaters;
+        }
+
+        void handle(int threadIdx, int requestIdx, byte[] buf) throws Exception {
+            byte[] slice = slices.get(requestIdx % slices.size());
+            if ("striped".equals(mode)) {
+                Inflater inf = stripedInflaters[threadIdx % stripedInflaters.length];
+                synchronized (inf) {
+                    inf.reset();
+                    inflateBody(inf, slice, buf);
+                }
+            } else if ("pooled".equals(mode)) {
+                Inflater inf = pool.borrow();
+                try {
+                    inflateBody(inf, slice, buf);
+                } finally {
+                    pool.release(inf);
+                }
+            } else {
+                Inflater inf = new Inflater(false);
+                try {
+                    inflateBody(inf, slice, buf);
+                } finally {
+                    inf.end();
+                }
+            }
+        }
+
+        private void inflateBody(Inflater inf, byte[] slice, byte[] buf) throws Exception {
+            int compLen = slice.length - 4;
+            int half = compLen / 2;
+            long uncompCount = inflateAvailable(inf, slice, 0, half, buf);
+            Thread.sleep(BODY_WAIT_MILLIS);
+            uncompCount += inflateAvailable(inf, slice, half, compLen - half, buf);
+            int expected = readInt(slice, compLen);
+            if (!inf.finished() || expected != uncompCount) {
+                throw new RuntimeException("ERROR: inflate operation failed," +
+                        " expected decompressed bytes: [" + expected + "]," +
+                        " actual decompressed bytes: [" + uncompCount + "]");
+            }
+            uncompTotal.add(uncompCount);
+        }
+
+        private long inflateAvailable(Inflater inf, byte[] comp, int off, int len, byte[] buf) throws Exception {
+            inf.setInput(comp, off, len);
+            long uncompCount = 0;
+            long start = System.nanoTime();
+            while (!(inf.finished() || inf.needsInput())) {
+                uncompCount += inf.inflate(buf, 0, buf.length);
+            }
+            inflateNanos.add(System.nanoTime() - start);
+            return uncompCount;
+        }
+    }
+}